@@ -0,0 +1,176 @@
+package tpBranchEvalTwoCircles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import util.Box;
+import util.BoxBlock;
+import util.Contractor;
+import util.Equation;
+import util.ExprFunction;
+import util.Function;
+import util.Interval;
+import util.MeanValueForm;
+import util.RangeConstraint;
+
+/**
+ * The forms of a function (see MainBenchEvalModes) give the same
+ * enclosures: the interpreted tape (ExprFunction), the generated
+ * bytecode (ExprFunction.compile()), the evaluation of blocks of boxes
+ * and, up to the rounding of the constants, the hand-written
+ * CircleFunction.
+ */
+class EvalModesTest {
+
+    static final int NB_BOXES = 200;
+
+    static final Box[] BOXES = MainBenchEvalModes.randomBoxes(NB_BOXES, new Random(0));
+
+    static final CircleFunction[] CIRCLES = { new CircleFunction(0, 0, 1), new CircleFunction(2, 1, 2.5) };
+
+    @Test
+    void tapeAndCompiled() {
+	for (CircleFunction c : CIRCLES)
+	    assertSame(c.symbolic(), c.symbolic().compile());
+	ExprFunction lsq = MainBenchEvalModes.nCircles(10, new Random(1));
+	assertSame(lsq, lsq.compile());
+    }
+
+    @Test
+    void handWritten() {
+	Interval r1 = Interval.EMPTY();
+	Interval r2 = Interval.EMPTY();
+	for (CircleFunction c : CIRCLES) {
+	    Function tape = c.symbolic();
+	    for (Box x : BOXES) {
+		c.eval(x, r1);
+		tape.eval(x, r2);
+		assertEquals(r2.getLB(), r1.getLB(), 1e-12 * Math.abs(r2.getLB()), x.toString());
+		assertEquals(r2.getUB(), r1.getUB(), 1e-12 * Math.abs(r2.getUB()), x.toString());
+	    }
+	}
+    }
+
+    @Test
+    void blocks() {
+	BoxBlock xs = new BoxBlock(2, NB_BOXES);
+	for (Box x : BOXES) xs.add(x);
+	double[] lb = new double[NB_BOXES];
+	double[] ub = new double[NB_BOXES];
+	Interval r = Interval.EMPTY();
+	ExprFunction lsq = MainBenchEvalModes.nCircles(10, new Random(1));
+	for (Function f : new Function[] { CIRCLES[0].symbolic(), CIRCLES[1].symbolic(), lsq, lsq.compile() }) {
+	    f.eval(xs, lb, ub);
+	    for (int k = 0; k < NB_BOXES; k++) {
+		f.eval(BOXES[k], r);
+		assertEquals(r.getLB(), lb[k], BOXES[k].toString());
+		assertEquals(r.getUB(), ub[k], BOXES[k].toString());
+	    }
+	}
+    }
+
+    @Test
+    void gradients() {
+	Interval[] g1 = { Interval.EMPTY(), Interval.EMPTY() };
+	Interval[] g2 = { Interval.EMPTY(), Interval.EMPTY() };
+	Interval[] g3 = { Interval.EMPTY(), Interval.EMPTY() };
+	for (CircleFunction c : CIRCLES) {
+	    ExprFunction tape = c.symbolic();
+	    Function compiled = tape.compile();
+	    for (Box x : BOXES) {
+		c.evalGradient(x, g1);
+		tape.evalGradient(x, g2);
+		compiled.evalGradient(x, g3);
+		for (int i = 0; i < 2; i++) {
+		    // 2(x_i - p_i) by hand, -2(p_i - x_i) on the tape
+		    assertEquals(g1[i].getLB(), g2[i].getLB(), 1e-12, x.toString());
+		    assertEquals(g1[i].getUB(), g2[i].getUB(), 1e-12, x.toString());
+		    assertEquals(g2[i].getLB(), g3[i].getLB(), x.toString());
+		    assertEquals(g2[i].getUB(), g3[i].getUB(), x.toString());
+		}
+	    }
+	}
+    }
+
+    @Test
+    void outward() {
+	Random r = new Random(2);
+	Interval res = Interval.EMPTY();
+	Interval out = Interval.EMPTY();
+	for (CircleFunction c : CIRCLES) {
+	    ExprFunction tape = c.symbolic();
+	    Function compiled = tape.compile();
+	    for (Function f : new Function[] { c, tape, compiled }) {
+		for (Box x : BOXES) {
+		    f.eval(x, res);
+		    f.evalOutward(x, out);
+		    assertTrue(out.getLB() <= res.getLB() && res.getUB() <= out.getUB(), x.toString());
+		}
+		// points close to the circle: f(x) is a difference of close terms
+		for (int k = 0; k < NB_BOXES; k++) {
+		    double t = 2 * Math.PI * r.nextDouble();
+		    double x1 = c.p1 + c.radius * Math.cos(t);
+		    double x2 = c.p2 + c.radius * Math.sin(t);
+		    Box x = new Box(2);
+		    x.set(0, x1, x1);
+		    x.set(1, x2, x2);
+		    f.evalOutward(x, out);
+		    BigDecimal d1 = new BigDecimal(c.p1).subtract(new BigDecimal(x1));
+		    BigDecimal d2 = new BigDecimal(c.p2).subtract(new BigDecimal(x2));
+		    BigDecimal radius = new BigDecimal(c.radius);
+		    BigDecimal exact = d1.multiply(d1).add(d2.multiply(d2)).subtract(radius.multiply(radius));
+		    assertTrue(new BigDecimal(out.getLB()).compareTo(exact) <= 0
+			       && exact.compareTo(new BigDecimal(out.getUB())) <= 0, x + " " + f);
+		}
+	    }
+	}
+    }
+
+    /**
+     * The HC4 contractor of a constraint is built from the symbolic
+     * form of any function that has one (none otherwise).
+     */
+    @Test
+    void contractors() {
+	CircleFunction c = CIRCLES[1];
+	Box x = new Box(2, new Interval(-3, 3));
+	for (Function f : new Function[] { c, c.symbolic(), c.symbolic().compile(), new MeanValueForm(c) }) {
+	    Contractor ctc = new Equation(f).contractor();
+	    Box y = x.copy();
+	    ctc.contract(y);
+	    assertTrue(y.maxDiam() < x.maxDiam(), f.toString());
+	    assertNotNull(new RangeConstraint(f, -1, 1).contractor(), f.toString());
+	}
+	Function natural = new Function() {
+		public Interval eval(Box x) {
+		    return Interval.ALL_REALS();
+		}
+	    };
+	assertNull(new Equation(natural).contractor());
+	assertNull(new RangeConstraint(natural, -1, 1).contractor());
+    }
+
+    /**
+     * Check that f and g give the same bounds on all the boxes, and
+     * the same answers to intersects().
+     */
+    static void assertSame(Function f, Function g) {
+	Interval r1 = Interval.EMPTY();
+	Interval r2 = Interval.EMPTY();
+	for (Box x : BOXES) {
+	    f.eval(x, r1);
+	    g.eval(x, r2);
+	    assertEquals(r1.getLB(), r2.getLB(), x.toString());
+	    assertEquals(r1.getUB(), r2.getUB(), x.toString());
+	    assertEquals(f.intersects(x, 0, 0), g.intersects(x, 0, 0), x.toString());
+	    assertEquals(!r1.isEmpty() && r1.getLB() <= 0 && r1.getUB() >= 0, f.intersects(x, 0, 0), x.toString());
+	}
+    }
+}
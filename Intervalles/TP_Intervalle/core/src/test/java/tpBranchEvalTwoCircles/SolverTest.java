@@ -0,0 +1,199 @@
+package tpBranchEvalTwoCircles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import problems.Problems;
+import util.Box;
+import util.Contractor;
+import util.Interval;
+import util.LargestFirst;
+
+/**
+ * The solvers find the same solutions as BranchEval, in the same order
+ * for the deterministic work stealing, and a search stopped (by the
+ * sink or cancelled) loses no solution: searching the unexplored boxes
+ * gives the others.
+ */
+class SolverTest {
+
+    static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    /* 64 solutions, 3967 branchings with BranchEval */
+    static final Problem GRID = Problems.get("circle-grid", 3);
+
+    @AfterAll
+    static void shutdown() {
+	POOL.shutdown();
+    }
+
+    static BranchEval[] solvers(Problem p) {
+	return new BranchEval[] {
+	    new BranchEval(p.ctrs, p.ctcs),
+	    new BestFirstBranchEval(p.ctrs, p.ctcs, BoxPriority.largestFirst()),
+	    new WorkStealingBranchEval(p.ctrs, p.ctcs, new LargestFirst(), 4, false),
+	    new WorkStealingBranchEval(p.ctrs, p.ctcs, new LargestFirst(), 4, true),
+	    new ParallelBranchEval(p.ctrs, p.ctcs, POOL)
+	};
+    }
+
+    static Problem twoCircles() {
+	CircleEquation[] ctrs = { new CircleEquation(0, 0, 1), new CircleEquation(2, 1, 2.5) };
+	Contractor[] ctcs = { ctrs[0].contractor(), ctrs[1].contractor() };
+	return new Problem(ctrs, ctcs, new Box(2, new Interval(-3, 3)), 1e-4);
+    }
+
+    @Test
+    void deterministicOrder() {
+	for (Problem p : new Problem[] { twoCircles(), GRID }) {
+	    CollectingSink expected = new CollectingSink();
+	    long count = new BranchEval(p.ctrs, p.ctcs).solve(p.x0, p.eps, expected);
+	    CollectingSink sols = new CollectingSink();
+	    long n = new WorkStealingBranchEval(p.ctrs, p.ctcs, new LargestFirst(), 4, true).solve(p.x0, p.eps, sols);
+	    assertEquals(count, n);
+	    assertEquals(expected.size(), sols.size());
+	    for (int i = 0; i < sols.size(); i++) {
+		assertSameBox(expected.getSolutions().get(i), sols.getSolutions().get(i));
+		assertEquals(expected.isCertified(i), sols.isCertified(i));
+	    }
+	}
+    }
+
+    /**
+     * More solutions than the queue of the work stealing holds, sent to
+     * a slow sink: the workers wait for it and none is lost.
+     */
+    @Test
+    void streaming() {
+	CircleEquation[] ctrs = { new CircleEquation(0, 0, 1) };
+	Contractor[] ctcs = { ctrs[0].contractor() };
+	Box x0 = new Box(2, new Interval(-3, 3));
+	CountingSink expected = new CountingSink();
+	new BranchEval(ctrs, ctcs).search(x0, 1e-3, expected);
+	assertTrue(expected.getCount() > 4096);
+	final CountingSink sols = new CountingSink();
+	SearchResult r = new WorkStealingBranchEval(ctrs, ctcs, new LargestFirst(), 4, false).search(x0, 1e-3, new SolutionSink() {
+		public boolean accept(Box x) {
+		    if (sols.getCount() % 1024 == 0) Thread.yield();
+		    return sols.accept(x);
+		}
+	    });
+	assertEquals(expected.getCount(), sols.getCount());
+	assertTrue(r.getUnexplored().isEmpty());
+    }
+
+    /**
+     * An exception of the sink stops the workers.
+     */
+    @Test
+    void failingSink() throws InterruptedException {
+	final RuntimeException failure = new RuntimeException();
+	for (BranchEval s : solvers(GRID)) {
+	    try {
+		s.search(GRID.x0, GRID.eps, new SolutionSink() {
+			public boolean accept(Box x) {
+			    throw failure;
+			}
+		    });
+		fail(s.getClass().getSimpleName());
+	    } catch (RuntimeException e) {
+		// the fork/join pool may rethrow a copy of the exception
+		assertSame(failure, e == failure ? e : e.getCause(), s.getClass().getSimpleName());
+	    }
+	}
+	for (Thread t : Thread.getAllStackTraces().keySet())
+	    if (t.getName().startsWith("branch-eval-worker-")) t.join(10000);
+	for (Thread t : Thread.getAllStackTraces().keySet())
+	    assertFalse(t.getName().startsWith("branch-eval-worker-"), t.getName());
+    }
+
+    /**
+     * With an unbounded initial box, the fork/join solver still forks
+     * (the first levels of the search tree) and finds the solutions of
+     * BranchEval.
+     */
+    @Test
+    void unboundedFork() {
+	Problem p = twoCircles();
+	Box x0 = new Box(2);
+	assertTrue(ParallelBranchEval.forkDepth(x0) > 0);
+	assertEquals(0, ParallelBranchEval.forkDepth(p.x0));
+	CollectingSink expected = new CollectingSink();
+	new BranchEval(p.ctrs, p.ctcs).search(x0, p.eps, expected);
+	assertTrue(expected.size() > 0);
+	CollectingSink sols = new CollectingSink();
+	SearchResult r = new ParallelBranchEval(p.ctrs, p.ctcs, POOL).search(x0, p.eps, sols);
+	assertTrue(r.getUnexplored().isEmpty());
+	assertEquals(expected.size(), sols.size());
+    }
+
+    @Test
+    void sameSolutions() {
+	for (BranchEval s : solvers(GRID)) {
+	    CountingSink sols = new CountingSink();
+	    SearchResult r = s.search(GRID.x0, GRID.eps, sols);
+	    String name = s.getClass().getSimpleName();
+	    assertEquals(64, sols.getCount(), name);
+	    assertFalse(r.isCancelled(), name);
+	    assertTrue(r.getUnexplored().isEmpty(), name);
+	}
+    }
+
+    @Test
+    void stopAndResume() {
+	for (int k : new int[] { 1, 10, 40 }) {
+	    for (BranchEval s : solvers(GRID)) {
+		CountingSink sols = new CountingSink();
+		SearchResult r = s.search(GRID.x0, GRID.eps, new BoundedSink(sols, k));
+		String name = s.getClass().getSimpleName() + " stopped after " + k;
+		assertEquals(k, sols.getCount(), name);
+		assertEquals(64, sols.getCount() + resume(s, r.getUnexplored()), name);
+	    }
+	}
+    }
+
+    @Test
+    void cancelAndResume() {
+	for (final BranchEval s : solvers(GRID)) {
+	    final CountingSink sols = new CountingSink();
+	    // cancelled at the first solution, seen by the solver at its next report
+	    SearchResult r = s.search(GRID.x0, GRID.eps, new SolutionSink() {
+		    public boolean accept(Box x) {
+			s.cancel();
+			return sols.accept(x);
+		    }
+		});
+	    String name = s.getClass().getSimpleName();
+	    if (!r.isCancelled()) assertTrue(r.getUnexplored().isEmpty(), name);
+	    assertEquals(64, sols.getCount() + resume(s, r.getUnexplored()), name);
+	}
+    }
+
+    /**
+     * Return the number of solutions in the boxes.
+     */
+    static long resume(BranchEval s, List<Box> boxes) {
+	CountingSink sols = new CountingSink();
+	for (Box x : boxes) {
+	    SearchResult r = s.search(x, GRID.eps, sols);
+	    assertFalse(r.isCancelled());
+	}
+	return sols.getCount();
+    }
+
+    static void assertSameBox(Box expected, Box x) {
+	for (int i = 0; i < x.dim(); i++) {
+	    assertEquals(expected.getLB(i), x.getLB(i));
+	    assertEquals(expected.getUB(i), x.getUB(i));
+	}
+    }
+}
@@ -0,0 +1,113 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Box.tryBisect: the split, and the boxes that cannot be split
+ * (lower and upper are then unchanged).
+ */
+class BoxTest {
+
+	static Box box(double... bounds) {
+		Box x = new Box(bounds.length/2);
+		for (int i=0; i<x.dim(); i++) x.set(i, bounds[2*i], bounds[2*i+1]);
+		return x;
+	}
+
+	static void assertBounds(Box x, double... bounds) {
+		for (int i=0; i<x.dim(); i++) {
+			assertEquals(bounds[2*i], x.getLB(i), "lb of component "+i);
+			assertEquals(bounds[2*i+1], x.getUB(i), "ub of component "+i);
+		}
+	}
+
+	@Test
+	void bisect() {
+		Box x = box(0, 4, -1, 1);
+		Box lower = new Box(2);
+		Box upper = new Box(2);
+		assertEquals(Interval.BISECTED, x.tryBisect(0, 1, lower, upper));
+		assertBounds(lower, 0, 1, -1, 1);
+		assertBounds(upper, 1, 4, -1, 1);
+		assertBounds(x, 0, 4, -1, 1);
+	}
+
+	@Test
+	void bisectInPlace() {
+		// the box itself can receive either half
+		Box x = box(0, 4, -1, 1);
+		Box upper = new Box(2);
+		assertEquals(Interval.BISECTED, x.tryBisect(1, 0.5, x, upper));
+		assertBounds(x, 0, 4, -1, 0.5);
+		assertBounds(upper, 0, 4, 0.5, 1);
+
+		x = box(0, 4, -1, 1);
+		Box lower = new Box(2);
+		assertEquals(Interval.BISECTED, x.tryBisect(0, 3, lower, x));
+		assertBounds(lower, 0, 3, -1, 1);
+		assertBounds(x, 3, 4, -1, 1);
+	}
+
+	@Test
+	void bisectUnbounded() {
+		Box x = new Box(1);
+		Box lower = new Box(1);
+		Box upper = new Box(1);
+		assertEquals(Interval.BISECTED, x.tryBisect(0, 0, lower, upper));
+		assertBounds(lower, Double.NEGATIVE_INFINITY, 0);
+		assertBounds(upper, 0, Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	void emptyBox() {
+		Box x = box(0, 4, -1, 1);
+		x.setToEmpty();
+		Box lower = box(5, 6, 7, 8);
+		Box upper = box(5, 6, 7, 8);
+		assertEquals(Interval.EMPTY_ITV, x.tryBisect(0, 1, lower, upper));
+		assertBounds(lower, 5, 6, 7, 8);
+		assertBounds(upper, 5, 6, 7, 8);
+		assertTrue(x.isEmpty());
+	}
+
+	@Test
+	void degenerated() {
+		Box x = box(2, 2, -1, 1);
+		Box lower = box(5, 6, 7, 8);
+		Box upper = box(5, 6, 7, 8);
+		assertEquals(Interval.DEGENERATED, x.tryBisect(0, 2, lower, upper));
+		assertBounds(lower, 5, 6, 7, 8);
+		assertBounds(upper, 5, 6, 7, 8);
+		// the other components can still be split
+		assertEquals(Interval.BISECTED, x.tryBisect(1, 0, lower, upper));
+	}
+
+	@Test
+	void pointOutside() {
+		Box x = box(0, 4);
+		Box lower = box(5, 6);
+		Box upper = box(5, 6);
+		assertEquals(Interval.POINT_OUTSIDE, x.tryBisect(0, 0, lower, upper));
+		assertEquals(Interval.POINT_OUTSIDE, x.tryBisect(0, 4, lower, upper));
+		assertEquals(Interval.POINT_OUTSIDE, x.tryBisect(0, -1, lower, upper));
+		assertEquals(Interval.POINT_OUTSIDE, x.tryBisect(0, Double.NaN, lower, upper));
+		assertBounds(lower, 5, 6);
+		assertBounds(upper, 5, 6);
+		assertBounds(x, 0, 4);
+	}
+
+	@Test
+	void consecutiveDoubles() {
+		// no floating-point number strictly between the bounds
+		double lb = 1;
+		double ub = Math.nextUp(lb);
+		Box x = box(lb, ub);
+		Box lower = new Box(1);
+		Box upper = new Box(1);
+		assertEquals(Interval.POINT_OUTSIDE, x.tryBisect(0, Interval.mid(lb, ub), lower, upper));
+		assertBounds(x, lb, ub);
+	}
+}
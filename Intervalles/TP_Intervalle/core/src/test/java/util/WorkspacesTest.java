@@ -0,0 +1,60 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The work arrays taken from a Workspaces are recycled from one thread
+ * to the next, and never shared by two Locals (even of the same class).
+ */
+class WorkspacesTest {
+
+	static Workspaces.Local<double[]> local() {
+		return new Workspaces.Local<double[]>() {
+			protected double[] create() {
+				return new double[4];
+			}
+		};
+	}
+
+	/**
+	 * Return the arrays of l1 and l2 in a new thread bound to w.
+	 */
+	static Object[] arrays(final Workspaces w, final Workspaces.Local<double[]> l1, final Workspaces.Local<double[]> l2)
+		throws InterruptedException {
+		final Object[] res = new Object[2];
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				Workspaces.bind(w);
+				try {
+					res[0] = l1.get();
+					res[1] = l2.get();
+				} finally {
+					Workspaces.bind(null);
+				}
+			}
+		});
+		t.start();
+		t.join();
+		return res;
+	}
+
+	@Test
+	void recycled() throws InterruptedException {
+		Workspaces w = new Workspaces();
+		Workspaces.Local<double[]> l1 = local();
+		Workspaces.Local<double[]> l2 = local();
+		Object[] first = arrays(w, l1, l2);
+		Object[] second = arrays(w, l1, l2);
+		assertSame(first[0], second[0]);
+		assertSame(first[1], second[1]);
+	}
+
+	@Test
+	void notShared() throws InterruptedException {
+		Object[] a = arrays(new Workspaces(), local(), local());
+		assertNotSame(a[0], a[1]);
+	}
+}
@@ -0,0 +1,43 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: same options as the JMH launcher,
+ * with different defaults so that each run can be compared with
+ * the previous ones:
+ * - the gc profiler (allocation rate) is enabled if no profiler is given,
+ * - results are written in JSON to jmh-result.json (see -rf and -rff).
+ *
+ * E.g.: java -jar target/benchmarks.jar IMathBench -rff imath.json
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+	CommandLineOptions cmd = new CommandLineOptions(args);
+
+	if (cmd.shouldHelp()) {
+	    cmd.showHelp();
+	    return;
+	}
+	if (cmd.shouldList()) {
+	    new Runner(cmd).list();
+	    return;
+	}
+
+	ChainedOptionsBuilder opts = new OptionsBuilder().parent(cmd);
+	if (cmd.getProfilers().isEmpty())
+	    opts.addProfiler(GCProfiler.class);
+	if (!cmd.getResultFormat().hasValue())
+	    opts.resultFormat(ResultFormatType.JSON);
+	if (!cmd.getResult().hasValue())
+	    opts.result("jmh-result.json");
+
+	new Runner(opts.build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import util.Box;
+import util.Interval;
+import util.Pair;
+
+/**
+ * Box operations of the branching loop: bisection (allocating and
+ * in place) and maximal diameter, for boxes of dimension "dim".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoxBench {
+
+    static final int N = 256;
+
+    @Param({"2", "10"})
+    int dim;
+
+    Box[] boxes;
+    Box lower;
+    Box upper;
+
+    @Setup
+    public void setup() {
+	boxes = Boxes.random(N, dim, 0);
+	lower = new Box(dim);
+	upper = new Box(dim);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void bisect(Blackhole bh) {
+	for (int i = 0; i < N; i++) {
+	    Pair<Box,Box> p = boxes[i].bisect(i % dim);
+	    bh.consume(p);
+	}
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int tryBisect() {
+	int s = 0;
+	for (int i = 0; i < N; i++) {
+	    Box x = boxes[i];
+	    int var = i % dim;
+	    double pt = Interval.tryMid(x.getLB(var), x.getUB(var));
+	    s += x.tryBisect(var, pt, lower, upper);
+	}
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double maxDiam() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += boxes[i].maxDiam();
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double tryMaxDiam() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += boxes[i].tryMaxDiam();
+	return s;
+    }
+}
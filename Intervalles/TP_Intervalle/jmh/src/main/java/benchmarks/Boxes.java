@@ -0,0 +1,28 @@
+package benchmarks;
+
+import java.util.Random;
+
+import util.Box;
+
+/**
+ * Random inputs shared by the benchmarks (fixed seed).
+ */
+class Boxes {
+
+    /**
+     * Return n boxes of dimension "dim" with components of width
+     * in [0,1] inside [-3,4] (as in MainBenchEvalModes).
+     */
+    static Box[] random(int n, int dim, long seed) {
+	Random r = new Random(seed);
+	Box[] boxes = new Box[n];
+	for (int i = 0; i < n; i++) {
+	    boxes[i] = new Box(dim);
+	    for (int j = 0; j < dim; j++) {
+		double lb = 6 * r.nextDouble() - 3;
+		boxes[i].set(j, lb, lb + r.nextDouble());
+	    }
+	}
+	return boxes;
+    }
+}
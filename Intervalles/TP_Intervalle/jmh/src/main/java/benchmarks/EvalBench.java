@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import tpBranchEvalTwoCircles.CircleEquation;
+import tpBranchEvalTwoCircles.CircleFunction;
+import util.Box;
+import util.BoxBlock;
+import util.Constraint;
+import util.Interval;
+
+/**
+ * Evaluation of a circle (time per box): CircleFunction.eval,
+ * Equation.violated box by box, and the block evaluation of
+ * Equation.notViolated (specialized for CircleFunction, and the
+ * generic one of Constraint), as in MainBenchBlockEval.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBench {
+
+    static final int N = 4096;
+
+    Box[] boxes;
+    BoxBlock block;
+    long[] mask;
+    Interval res;
+
+    CircleFunction circle;
+    CircleEquation eq;
+    Constraint generic;
+
+    @Setup
+    public void setup() {
+	boxes = Boxes.random(N, 2, 0);
+	block = new BoxBlock(2, N);
+	for (Box x : boxes) block.add(x);
+	mask = new long[(N + 63) / 64];
+	res = Interval.ALL_REALS();
+
+	circle = new CircleFunction(2, 1, 2.5);
+	eq = new CircleEquation(2, 1, 2.5);
+	// the same equation, with the generic block evaluation
+	generic = new Constraint() {
+		public boolean violated(Box box) { return eq.violated(box); }
+	    };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double circleEval() {
+	double s = 0;
+	for (int i = 0; i < N; i++) {
+	    circle.eval(boxes[i], res);
+	    s += res.getLB();
+	}
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int violated() {
+	int n = 0;
+	for (int i = 0; i < N; i++)
+	    if (!eq.violated(boxes[i])) n++;
+	return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public long[] blockGeneric() {
+	generic.notViolated(block, mask);
+	return mask;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public long[] blockCircle() {
+	eq.notViolated(block, mask);
+	return mask;
+    }
+}
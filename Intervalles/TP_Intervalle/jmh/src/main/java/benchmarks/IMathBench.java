@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import util.IMath;
+
+/**
+ * Interval operators on raw bounds (IMath), over N random intervals
+ * (time per operation).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IMathBench {
+
+    static final int N = 1024;
+
+    double[] lb1 = new double[N], ub1 = new double[N];
+    double[] lb2 = new double[N], ub2 = new double[N];
+
+    @Setup
+    public void setup() {
+	Random r = new Random(0);
+	for (int i = 0; i < N; i++) {
+	    lb1[i] = 10 * r.nextDouble() - 5;
+	    ub1[i] = lb1[i] + r.nextDouble();
+	    lb2[i] = 10 * r.nextDouble() - 5;
+	    ub2[i] = lb2[i] + r.nextDouble();
+	}
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double add() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += IMath.addLB(lb1[i], lb2[i]) + IMath.addUB(ub1[i], ub2[i]);
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double sub() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += IMath.subLB(lb1[i], ub2[i]) + IMath.subUB(ub1[i], lb2[i]);
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double scalmul() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += IMath.scalmulLB(lb2[i], lb1[i], ub1[i]) + IMath.scalmulUB(lb2[i], lb1[i], ub1[i]);
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double mul() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += IMath.mulLB(lb1[i], ub1[i], lb2[i], ub2[i]) + IMath.mulUB(lb1[i], ub1[i], lb2[i], ub2[i]);
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double sqr() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += IMath.sqrLB(lb1[i], ub1[i]) + IMath.sqrUB(lb1[i], ub1[i]);
+	return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double sqrt() {
+	double s = 0;
+	for (int i = 0; i < N; i++)
+	    s += IMath.sqrtLB(lb1[i]) + IMath.sqrtUB(ub1[i]);
+	return s;
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import tpBranchEvalTwoCircles.BranchEval;
+import tpBranchEvalTwoCircles.CircleEquation;
+import tpBranchEvalTwoCircles.CountingSink;
+import util.Box;
+import util.Contractor;
+import util.Interval;
+import util.Krawczyk;
+
+/**
+ * Full BranchEval.solve on the two circles of MainBranchEvalTwoCircles,
+ * with no contractor, HC4, or HC4 followed by Krawczyk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBench {
+
+    @Param({"none", "hc4", "hc4+krawczyk"})
+    String contractors;
+
+    @Param({"1e-4"})
+    double eps;
+
+    Box x0;
+    BranchEval solver;
+
+    @Setup
+    public void setup() {
+	CircleEquation[] ctrs = {
+	    new CircleEquation(0, 0, 1),
+	    new CircleEquation(2, 1, 2.5)
+	};
+	Contractor[] ctcs;
+	if (contractors.equals("none"))
+	    ctcs = new Contractor[0];
+	else if (contractors.equals("hc4"))
+	    ctcs = new Contractor[] { ctrs[0].contractor(), ctrs[1].contractor() };
+	else
+	    ctcs = new Contractor[] { ctrs[0].contractor(), ctrs[1].contractor(), new Krawczyk(ctrs) };
+	solver = new BranchEval(ctrs, ctcs);
+	x0 = new Box(2, new Interval(-3, 3));
+    }
+
+    @Benchmark
+    public long solve() {
+	CountingSink sink = new CountingSink();
+	long count = solver.solve(x0, eps, sink);
+	return count + sink.getCount();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import tpBranchEvalTwoCircles.CircleEquation;
+import tpBranchEvalTwoCircles.CircleFunction;
+import tpBranchEvalTwoCircles.VectorCircleEquation;
+import tpBranchEvalTwoCircles.VectorCircleFunction;
+import util.Box;
+import util.BoxBlock;
+
+/**
+ * Block evaluation of a circle (time per box), scalar loop of
+ * CircleFunction/CircleEquation against the Vector API
+ * (VectorCircleFunction/VectorCircleEquation), on the inputs of
+ * EvalBench.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorEvalBench {
+
+    static final int N = EvalBench.N;
+
+    BoxBlock block;
+    long[] mask;
+    double[] lb;
+    double[] ub;
+
+    CircleFunction circle;
+    VectorCircleFunction vcircle;
+    CircleEquation eq;
+    VectorCircleEquation veq;
+
+    @Setup
+    public void setup() {
+	block = new BoxBlock(2, N);
+	for (Box x : Boxes.random(N, 2, 0)) block.add(x);
+	mask = new long[(N + 63) / 64];
+	lb = new double[N];
+	ub = new double[N];
+
+	circle = new CircleFunction(2, 1, 2.5);
+	vcircle = new VectorCircleFunction(2, 1, 2.5);
+	eq = new CircleEquation(2, 1, 2.5);
+	veq = new VectorCircleEquation(2, 1, 2.5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double[] evalScalar() {
+	circle.eval(block, lb, ub);
+	return lb;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double[] evalVector() {
+	vcircle.eval(block, lb, ub);
+	return lb;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public long[] blockScalar() {
+	eq.notViolated(block, mask);
+	return mask;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public long[] blockVector() {
+	veq.notViolated(block, mask);
+	return mask;
+    }
+}
@@ -0,0 +1,102 @@
+package problems;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import tpBranchEvalTwoCircles.*;
+import util.*;
+
+/**
+ * Run the solvers on the problems of the library, for increasing
+ * sizes: number of branchings, number of solutions (and certified
+ * ones), wall time and peak heap memory of each solve.
+ *
+ * Arguments: [family size1 size2 ...] (default: all the families,
+ * with small sizes). The problems are solved once each (no warm-up):
+ * the times are those of a first run.
+ */
+public class MainProblems {
+
+    public static void main(String[] args) {
+	// the searches are registered as MBeans: start the server before the timings
+	ManagementFactory.getPlatformMBeanServer();
+	if (args.length > 0) {
+	    int[] sizes = new int[args.length - 1];
+	    for (int k = 1; k < args.length; k++)
+		sizes[k - 1] = Integer.parseInt(args[k]);
+	    run(args[0], sizes);
+	} else {
+	    run("trilateration", new int[] { 3, 6, 12 });
+	    run("circle-grid", new int[] { 2, 3 });
+	    run("broyden", new int[] { 2, 4, 8 });
+	    run("spheres", new int[] { 2, 3, 4 });
+	}
+    }
+
+    static void run(String family, int[] sizes) {
+	System.out.println(family + ":");
+	System.out.println(String.format("  %4s %-16s %12s %10s %10s %10s %8s",
+					 "size", "solver", "branchings", "solutions", "certified", "ms", "peak MB"));
+	for (int size : sizes) {
+	    Problem p = Problems.get(family, size);
+	    List<String> names = new ArrayList<String>();
+	    List<BranchEval> solvers = new ArrayList<BranchEval>();
+
+	    names.add("depth first");
+	    solvers.add(new BranchEval(p.ctrs, p.ctcs));
+
+	    // Krawczyk, when the problem is a square system of equations
+	    Equation[] eqs = Problems.equations(p);
+	    if (eqs.length == p.x0.dim() && eqs.length == p.ctrs.length) {
+		Contractor[] ctcs = new Contractor[p.ctcs.length + 1];
+		System.arraycopy(p.ctcs, 0, ctcs, 0, p.ctcs.length);
+		ctcs[p.ctcs.length] = new Krawczyk(eqs);
+		names.add("depth + newton");
+		solvers.add(new BranchEval(p.ctrs, ctcs));
+	    }
+
+	    names.add("best first");
+	    solvers.add(new BestFirstBranchEval(p.ctrs, p.ctcs, BoxPriority.largestFirst()));
+	    names.add("work stealing");
+	    solvers.add(new WorkStealingBranchEval(p.ctrs, p.ctcs));
+	    names.add("fork/join");
+	    solvers.add(new ParallelBranchEval(p.ctrs, p.ctcs));
+
+	    for (int k = 0; k < solvers.size(); k++) {
+		CountingSink sink = new CountingSink();
+		resetPeakMemory();
+		solvers.get(k).setMonitored(true);
+		long t0 = System.nanoTime();
+		long count = solvers.get(k).solve(p.x0, p.eps, sink);
+		long t = System.nanoTime() - t0;
+		System.out.println(String.format("  %4d %-16s %12d %10d %10d %10d %8d",
+						 size, names.get(k), count, sink.getCount(), sink.getNbCertified(),
+						 t / 1000000, peakMemory() >> 20));
+	    }
+	}
+    }
+
+    /**
+     * Collect the garbage and reset the peak usage of the heap.
+     */
+    static void resetPeakMemory() {
+	System.gc();
+	for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+	    if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+    }
+
+    /**
+     * Return the peak heap usage (in bytes) since the last reset.
+     * The peaks of the memory pools are summed (they may not be
+     * simultaneous): this is an upper bound.
+     */
+    static long peakMemory() {
+	long peak = 0;
+	for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+	    if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+	return peak;
+    }
+}
@@ -0,0 +1,177 @@
+package problems;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tpBranchEvalTwoCircles.Problem;
+import util.*;
+
+/**
+ * Generators of benchmark problems, scalable in dimension and number
+ * of constraints. The functions are built symbolically (ExprFunction)
+ * and each constraint comes with its HC4 contractor.
+ *
+ * Random instances are determined by their seed.
+ */
+public class Problems {
+
+    /* Names of the families (see get) */
+    public static final String[] FAMILIES = { "trilateration", "circle-grid", "broyden", "spheres" };
+
+    /**
+     * Return the problem of the family "name" with the scale parameter
+     * "size" (dimension or grid size), with default values for the other
+     * parameters.
+     */
+    public static Problem get(String name, int size) {
+	if (name.equals("trilateration")) return trilateration(2, size, 0.1, 0);
+	if (name.equals("circle-grid"))   return circleGrid(size, 0.625);
+	if (name.equals("broyden"))       return broydenBanded(size);
+	if (name.equals("spheres"))       return sphereIntersection(size, size, 0);
+	throw new IllegalArgumentException("Unknown problem family: " + name);
+    }
+
+    /**
+     * Trilateration: localize a point of R^dim from its distances to
+     * "anchors" known points, each measured with an error uniformly
+     * distributed in [-noise,noise]. The constraints are
+     * |x-a_k|^2 in [(d_k-noise)^2, (d_k+noise)^2] and the solution set
+     * is a small region around the point, in [-10,10]^dim.
+     */
+    public static Problem trilateration(int dim, int anchors, double noise, long seed) {
+	Random r = new Random(seed);
+	double[] p = randomPoint(r, dim, 5);
+	ExprBuilder b = new ExprBuilder();
+	Constraint[] ctrs = new Constraint[anchors];
+	Contractor[] ctcs = new Contractor[anchors];
+	for (int k = 0; k < anchors; k++) {
+	    double[] a = randomPoint(r, dim, 10);
+	    double d = Math.max(0, dist(p, a) + noise * (2 * r.nextDouble() - 1));
+	    double lb = Math.max(0, d - noise);
+	    RangeConstraint c = new RangeConstraint(new ExprFunction(sqrDist(b, a, 0)), lb * lb, (d + noise) * (d + noise));
+	    ctrs[k] = c;
+	    ctcs[k] = c.contractor();
+	}
+	return new Problem(ctrs, ctcs, new Box(dim, new Interval(-10, 10)), noise / 4);
+    }
+
+    /**
+     * Grid of g x g circles of radius "radius" (in (0.5,1)) centered at
+     * the integer points (i,j). For each pair of horizontally adjacent
+     * circles, a point of R^2 must lie on both circles: the dimension
+     * is 2g(g-1), the number of equations too and there are
+     * 2^(g(g-1)) solutions (the subsystems are independent).
+     *
+     * As the arithmetic is not rounded outward, a solution whose
+     * coordinates are not floating-point numbers may be lost once its
+     * box is contracted to a point. With radius=0.625, the solutions
+     * (i+0.5, j+-0.375) are exact.
+     */
+    public static Problem circleGrid(int g, double radius) {
+	ExprBuilder b = new ExprBuilder();
+	List<Equation> eqs = new ArrayList<Equation>();
+	int var = 0;
+	for (int j = 0; j < g; j++) {
+	    for (int i = 0; i + 1 < g; i++) {
+		eqs.add(circle(b, new double[] { i, j }, radius, var));
+		eqs.add(circle(b, new double[] { i + 1, j }, radius, var));
+		var += 2;
+	    }
+	}
+	return equations(eqs, new Box(var, new Interval(-1, g)), 1e-6);
+    }
+
+    /**
+     * Broyden banded system of dimension n in [-1,1]^n:
+     * f_i(x) = x_i(2 + 5x_i^2) + 1 - sum_{j in J_i} x_j(1 + x_j),
+     * J_i = { j != i, max(0,i-5) <= j <= min(n-1,i+1) }.
+     * It has a unique solution.
+     */
+    public static Problem broydenBanded(int n) {
+	ExprBuilder b = new ExprBuilder();
+	List<Equation> eqs = new ArrayList<Equation>();
+	for (int i = 0; i < n; i++) {
+	    Expr xi = b.var(i);
+	    Expr e = b.add(b.mul(xi, b.add(b.cst(2), b.scalmul(5, b.sqr(xi)))), b.cst(1));
+	    for (int j = Math.max(0, i - 5); j <= Math.min(n - 1, i + 1); j++) {
+		if (j == i) continue;
+		Expr xj = b.var(j);
+		e = b.sub(e, b.mul(xj, b.add(b.cst(1), xj)));
+	    }
+	    eqs.add(new Equation(new ExprFunction(e)));
+	}
+	return equations(eqs, new Box(n, new Interval(-1, 1)), 1e-8);
+    }
+
+    /**
+     * Intersection of m >= n spheres of R^n, whose centers are random
+     * points of [-1,1]^n and which all contain a random point of
+     * [-0.5,0.5]^n, in [-3,3]^n (generically: the point and, if m=n,
+     * a second one).
+     */
+    public static Problem sphereIntersection(int n, int m, long seed) {
+	if (m < n) throw new IllegalArgumentException("At least n spheres are required");
+	Random r = new Random(seed);
+	double[] p = randomPoint(r, n, 0.5);
+	ExprBuilder b = new ExprBuilder();
+	List<Equation> eqs = new ArrayList<Equation>();
+	for (int k = 0; k < m; k++) {
+	    double[] c = randomPoint(r, n, 1);
+	    eqs.add(circle(b, c, dist(p, c), 0));
+	}
+	return equations(eqs, new Box(n, new Interval(-3, 3)), 1e-8);
+    }
+
+    /**
+     * Return the equations of a problem (the constraints of class Equation),
+     * e.g., to build a Krawczyk contractor when the system is square.
+     */
+    public static Equation[] equations(Problem p) {
+	List<Equation> eqs = new ArrayList<Equation>();
+	for (Constraint c : p.ctrs)
+	    if (c instanceof Equation) eqs.add((Equation) c);
+	return eqs.toArray(new Equation[eqs.size()]);
+    }
+
+    /**
+     * Equation |x-c|^2 = radius^2, x being the variables var, var+1, ...
+     */
+    private static Equation circle(ExprBuilder b, double[] c, double radius, int var) {
+	return new Equation(new ExprFunction(b.sub(sqrDist(b, c, var), b.cst(radius * radius))));
+    }
+
+    /**
+     * Expression |x-c|^2, x being the variables var, var+1, ...
+     */
+    private static Expr sqrDist(ExprBuilder b, double[] c, int var) {
+	Expr e = b.cst(0);
+	for (int i = 0; i < c.length; i++)
+	    e = b.add(e, b.sqr(b.sub(b.var(var + i), b.cst(c[i]))));
+	return e;
+    }
+
+    private static Problem equations(List<Equation> eqs, Box x0, double eps) {
+	Constraint[] ctrs = eqs.toArray(new Constraint[eqs.size()]);
+	List<Contractor> ctcs = new ArrayList<Contractor>();
+	for (Equation e : eqs) {
+	    Contractor c = e.contractor();
+	    if (c != null) ctcs.add(c);
+	}
+	return new Problem(ctrs, ctcs.toArray(new Contractor[ctcs.size()]), x0, eps);
+    }
+
+    private static double[] randomPoint(Random r, int dim, double range) {
+	double[] p = new double[dim];
+	for (int i = 0; i < dim; i++)
+	    p[i] = range * (2 * r.nextDouble() - 1);
+	return p;
+    }
+
+    private static double dist(double[] p, double[] q) {
+	double s = 0;
+	for (int i = 0; i < p.length; i++)
+	    s += (p[i] - q[i]) * (p[i] - q[i]);
+	return Math.sqrt(s);
+    }
+}
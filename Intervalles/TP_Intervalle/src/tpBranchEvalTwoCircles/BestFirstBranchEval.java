@@ -0,0 +1,117 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import util.*;
+
+/**
+ * Branch & evaluate processing the boxes by priority instead of
+ * depth first: the frontier is a binary heap (BoxHeap) ordered by
+ * the key given by a BoxPriority.
+ *
+ * The frontier stores only bounds and keys (no Box object), but it
+ * can be much larger than the stack of a depth-first search.
+ */
+public class BestFirstBranchEval extends BranchEval {
+
+    BoxPriority priority;
+
+    public BestFirstBranchEval(Constraint[] _ctrs, Contractor[] _ctcs, Bisector _bisector, BoxPriority _priority) {
+	super(_ctrs, _ctcs, _bisector);
+	this.priority = _priority;
+    }
+
+    public BestFirstBranchEval(Constraint[] _ctrs, Contractor[] _ctcs, BoxPriority _priority) {
+	this(_ctrs, _ctcs, new LargestFirst(), _priority);
+    }
+
+    public BestFirstBranchEval(Constraint[] _ctrs, BoxPriority _priority) {
+	this(_ctrs, new Contractor[0], _priority);
+    }
+
+    public SearchResult search(Box x0, double eps, SolutionSink sink) {
+	SearchProgress progress = SearchProgress.start(this, x0, eps);
+	try {
+	    return search(x0, eps, sink, progress);
+	} finally {
+	    progress.end();
+	}
+    }
+
+    /**
+     * Same as search(x0,eps,sink), reporting to "progress".
+     */
+    private SearchResult search(Box x0, double eps, SolutionSink sink, SearchProgress progress) {
+
+	int n = x0.dim();
+	BoxHeap heap = new BoxHeap(n, 64);
+	double[] b = new double[2 * n];
+	Box x = new Box(n);
+	Box upper = new Box(n);
+	SolverStats st = newStats();
+
+	x0.getBounds(b, 0);
+	heap.push(b, x0.isEmpty() ? 0 : priority.key(x0), -1);
+	long count = 0; // number of branchings
+	long reported = 0; // branchings reported to "progress"
+	double explored = 0; // fraction of x0 explored since the last report
+
+	while (!heap.isEmpty()) {
+
+	    if (count - reported == SearchProgress.PERIOD) {
+		boolean cancel = progress.advance(count - reported, explored, heap.size());
+		reported = count;
+		explored = 0;
+		if (cancel) break;
+	    }
+
+	    int last = heap.pop(b);
+	    int depth = heap.lastDepth();
+	    if (st != null) st.box(depth, heap.size() + 1);
+	    x.setBounds(b, 0);
+	    count++;
+
+	    int status = (count & (BOX_SAMPLING - 1)) == 0 ? sampledCheck(x, st, heap.size() + 1)
+		: check(x, st);
+	    if (status == DISCARDED) {
+		explored += Math.scalb(1.0, -depth);
+		continue;
+	    }
+
+	    int var = -1;
+	    boolean split = false;
+	    if (status != CERTIFIED && !(x.tryMaxDiam() < eps)) {
+		long t0 = st == null ? 0 : st.tick();
+		var = bisector.variable(x, last);
+		split = bisector.tryBisect(x, var, x, upper) == Interval.BISECTED;
+		if (st != null) st.bisected(t0);
+	    }
+
+	    if (!split) {
+		if (st != null) st.solution(status == CERTIFIED, var < 0);
+		explored += Math.scalb(1.0, -depth);
+		Box sol = new Box(n);  // x is reused
+		x.getBounds(b, 0);
+		sol.setBounds(b, 0);
+		boolean more = sink.accept(sol, status == CERTIFIED);
+		progress.found();
+		if (!more) break;
+	    } else {
+		x.getBounds(b, 0);
+		heap.push(b, priority.key(x), var, depth + 1);
+		upper.getBounds(b, 0);
+		heap.push(b, priority.key(upper), var, depth + 1);
+	    }
+	}
+	progress.advance(count - reported, explored, 0);
+	List<Box> left = new ArrayList<Box>(heap.size());
+	while (!heap.isEmpty()) {
+	    heap.pop(b);
+	    Box y = new Box(n);
+	    y.setBounds(b, 0);
+	    left.add(y);
+	}
+	return new SearchResult(count, progress.isCancelled(), st, left);
+    }
+}
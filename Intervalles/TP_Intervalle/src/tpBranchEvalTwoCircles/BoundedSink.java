@@ -0,0 +1,46 @@
+package tpBranchEvalTwoCircles;
+
+import util.Box;
+
+/**
+ * Forwards the first "limit" solutions to another sink, then
+ * stops the search.
+ */
+public class BoundedSink implements SolutionSink {
+
+    private final SolutionSink sink;
+
+    private final long limit;
+
+    private long count = 0;
+
+    public BoundedSink(SolutionSink _sink, long _limit) {
+	if (_limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+	this.sink = _sink;
+	this.limit = _limit;
+    }
+
+    public boolean accept(Box x) {
+	return accept(x, false);
+    }
+
+    public boolean accept(Box x, boolean certified) {
+	if (count >= limit) return false;
+	count++;
+	return sink.accept(x, certified) && count < limit;
+    }
+
+    /**
+     * Return the number of solutions forwarded.
+     */
+    public long getCount() {
+	return count;
+    }
+
+    /**
+     * Return true if the limit has been reached.
+     */
+    public boolean isFull() {
+	return count >= limit;
+    }
+}
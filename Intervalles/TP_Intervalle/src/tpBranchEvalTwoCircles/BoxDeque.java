@@ -0,0 +1,151 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Double-ended queue of boxes stored in primitive arrays.
+ *
+ * Each entry holds the bounds of a box (as given by Box.getBounds),
+ * its depth in the search tree, the component bisected to get it
+ * and its search path (one bit per bisection, see push).
+ * The owner pushes and pops at the bottom (deepest boxes), the
+ * other workers steal at the top (shallowest boxes, i.e., the
+ * largest subtrees).
+ *
+ * This is the deque of Chase and Lev ("Dynamic circular work-stealing
+ * deque", SPAA 2005): push and pop take no lock and only pop of the
+ * last entry competes with the thieves, by a compare-and-set on top.
+ * A thief copies the top entry before taking it with a compare-and-set,
+ * so the copy is used only if no other thread took the entry meanwhile.
+ * The arrays are replaced (never modified in place) when they are full
+ * or when a longer path is pushed, so that a thief still reading the
+ * old ones sees consistent entries.
+ */
+class BoxDeque {
+
+    /**
+     * Entries of the deque, in circular arrays.
+     */
+    private static final class Slots {
+	final int mask;           // capacity - 1 (a power of 2)
+	final int pathStride;     // path words per box
+	final double[] bounds;
+	final long[] paths;
+	final int[] depths;
+	final int[] vars;
+
+	Slots(int capacity, int boundsStride, int pathStride) {
+	    this.mask = capacity - 1;
+	    this.pathStride = pathStride;
+	    this.bounds = new double[capacity * boundsStride];
+	    this.paths = new long[capacity * pathStride];
+	    this.depths = new int[capacity];
+	    this.vars = new int[capacity];
+	}
+    }
+
+    private final int boundsStride;    // 2*n doubles per box
+    private final boolean paths;       // record the search paths
+
+    private volatile Slots slots;
+
+    private final AtomicLong top = new AtomicLong();  // index of the top entry
+    private volatile long bottom = 0;                  // index after the bottom entry
+
+    BoxDeque(int dim, boolean paths, int capacity) {
+	this.boundsStride = 2 * dim;
+	this.paths = paths;
+	this.slots = new Slots(Integer.highestOneBit(Math.max(2, capacity - 1) << 1), boundsStride, paths ? 1 : 0);
+    }
+
+    boolean isEmpty() {
+	return top.get() >= bottom;
+    }
+
+    /**
+     * Push a box at the bottom (owner only). Only the first "depth"
+     * bits of the path are significant (none if the deque does not
+     * record the paths).
+     */
+    void push(double[] b, long[] path, int depth, int var) {
+	long j = bottom;
+	Slots a = slots;
+	int words = paths ? (depth + 63) >> 6 : 0;
+	if (j - top.get() > a.mask || words > a.pathStride) a = grow(a, j, words);
+	int i = (int) j & a.mask;
+	System.arraycopy(b, 0, a.bounds, i * boundsStride, boundsStride);
+	System.arraycopy(path, 0, a.paths, i * a.pathStride, words);
+	a.depths[i] = depth;
+	a.vars[i] = var;
+	bottom = j + 1;
+    }
+
+    /**
+     * Pop the bottom box into b/path[0]/var[0] (owner only).
+     * path[0] is replaced by a longer array if needed.
+     *
+     * @return its depth, or -1 if the deque is empty
+     */
+    int pop(double[] b, long[][] path, int[] var) {
+	long j = bottom - 1;
+	Slots a = slots;
+	bottom = j;
+	long t = top.get();
+	if (t > j) {
+	    bottom = t;
+	    return -1;
+	}
+	int depth = read(a, (int) j & a.mask, b, path, var);
+	if (t == j) {
+	    // last entry: a thief may take it too
+	    boolean won = top.compareAndSet(t, t + 1);
+	    bottom = t + 1;
+	    if (!won) return -1;
+	}
+	return depth;
+    }
+
+    /**
+     * Remove the top box into b/path[0]/var[0].
+     * path[0] is replaced by a longer array if needed.
+     *
+     * @return its depth, or -1 if the deque is empty or
+     *         if another thread took the box first
+     */
+    int steal(double[] b, long[][] path, int[] var) {
+	long t = top.get();
+	long j = bottom;
+	if (t >= j) return -1;
+	Slots a = slots;
+	int depth = read(a, (int) t & a.mask, b, path, var);
+	return top.compareAndSet(t, t + 1) ? depth : -1;
+    }
+
+    private int read(Slots a, int i, double[] b, long[][] path, int[] var) {
+	System.arraycopy(a.bounds, i * boundsStride, b, 0, boundsStride);
+	if (path[0].length < a.pathStride) path[0] = new long[a.pathStride];
+	System.arraycopy(a.paths, i * a.pathStride, path[0], 0, a.pathStride);
+	var[0] = a.vars[i];
+	return a.depths[i];
+    }
+
+    /**
+     * Copy the entries of "a" into new arrays, twice larger if "a"
+     * is full and with at least "words" path words (owner only).
+     */
+    private Slots grow(Slots a, long j, int words) {
+	long t = top.get();
+	int cap = a.mask + 1;
+	Slots g = new Slots(j - t > a.mask ? 2 * cap : cap, boundsStride, Math.max(words, a.pathStride));
+	for (long k = t; k < j; k++) {
+	    int i = (int) k & a.mask;
+	    int l = (int) k & g.mask;
+	    System.arraycopy(a.bounds, i * boundsStride, g.bounds, l * boundsStride, boundsStride);
+	    System.arraycopy(a.paths, i * a.pathStride, g.paths, l * g.pathStride, a.pathStride);
+	    g.depths[l] = a.depths[i];
+	    g.vars[l] = a.vars[i];
+	}
+	slots = g;
+	return g;
+    }
+}
@@ -0,0 +1,32 @@
+package tpBranchEvalTwoCircles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event: check of a box (contraction and evaluation),
+ * for one box out of BranchEval.BOX_SAMPLING. Disabled by default.
+ */
+@Name("tpBranchEvalTwoCircles.Box")
+@Label("Box Check")
+@Category("Branch & Evaluate")
+@Description("Contraction and evaluation of a sampled box")
+@Enabled(false)
+@StackTrace(false)
+class BoxEvent extends jdk.jfr.Event {
+
+    @Label("Status")
+    @Description("0: discarded, 1: possible, 2: certified")
+    int status;
+
+    @Label("Max Diameter")
+    @Description("Before the check")
+    double maxDiam;
+
+    @Label("Frontier")
+    long frontier;
+}
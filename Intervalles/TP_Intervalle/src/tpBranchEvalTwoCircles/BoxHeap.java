@@ -0,0 +1,146 @@
+package tpBranchEvalTwoCircles;
+
+/**
+ * Binary min-heap of boxes stored in primitive arrays.
+ *
+ * Each entry holds the bounds of a box (as given by Box.getBounds), its
+ * key, the component bisected to get it and its depth. Entries of
+ * equal keys are popped in the reverse order of insertion (as a
+ * stack), so that a constant priority gives the depth-first order
+ * of BranchEval.
+ */
+class BoxHeap {
+
+    private final int boundsStride;    // 2*n doubles per box
+
+    private double[] bounds;
+    private double[] keys;
+    private long[] seqs;               // insertion numbers
+    private int[] vars;
+    private int[] depths;
+
+    private int size = 0;
+    private long seq = 0;
+    private int lastDepth = -1;        // depth of the last box popped
+
+    BoxHeap(int dim, int capacity) {
+	this.boundsStride = 2 * dim;
+	this.bounds = new double[capacity * boundsStride];
+	this.keys = new double[capacity];
+	this.seqs = new long[capacity];
+	this.vars = new int[capacity];
+	this.depths = new int[capacity];
+    }
+
+    int size() {
+	return size;
+    }
+
+    boolean isEmpty() {
+	return size == 0;
+    }
+
+    void clear() {
+	size = 0;
+	seq = 0;
+    }
+
+    /**
+     * Insert the box of bounds b with the given key (at depth 0).
+     */
+    void push(double[] b, double key, int var) {
+	push(b, key, var, 0);
+    }
+
+    /**
+     * Insert the box of bounds b with the given key and depth.
+     */
+    void push(double[] b, double key, int var, int depth) {
+	if (size == keys.length) grow();
+	int i = size++;
+	long s = seq++;
+	// sift up
+	while (i > 0) {
+	    int parent = (i - 1) >> 1;
+	    if (!before(key, s, keys[parent], seqs[parent])) break;
+	    move(parent, i);
+	    i = parent;
+	}
+	System.arraycopy(b, 0, bounds, i * boundsStride, boundsStride);
+	keys[i] = key;
+	seqs[i] = s;
+	vars[i] = var;
+	depths[i] = depth;
+    }
+
+    /**
+     * Remove the box of smallest key and copy its bounds into b.
+     *
+     * @return the component bisected to get it
+     */
+    int pop(double[] b) {
+	if (size == 0) throw new IllegalStateException("Empty heap");
+	System.arraycopy(bounds, 0, b, 0, boundsStride);
+	int res = vars[0];
+	lastDepth = depths[0];
+	size--;
+	if (size > 0) {
+	    // sift down the last entry from the root
+	    double key = keys[size];
+	    long s = seqs[size];
+	    int var = vars[size];
+	    int depth = depths[size];
+	    int i = 0;
+	    while (true) {
+		int child = 2 * i + 1;
+		if (child >= size) break;
+		if (child + 1 < size && before(keys[child + 1], seqs[child + 1], keys[child], seqs[child])) child++;
+		if (!before(keys[child], seqs[child], key, s)) break;
+		move(child, i);
+		i = child;
+	    }
+	    System.arraycopy(bounds, size * boundsStride, bounds, i * boundsStride, boundsStride);
+	    keys[i] = key;
+	    seqs[i] = s;
+	    vars[i] = var;
+	    depths[i] = depth;
+	}
+	return res;
+    }
+
+    /**
+     * Return the depth of the last box popped.
+     */
+    int lastDepth() {
+	return lastDepth;
+    }
+
+    /**
+     * Return the smallest key.
+     */
+    double peekKey() {
+	if (size == 0) throw new IllegalStateException("Empty heap");
+	return keys[0];
+    }
+
+    private static boolean before(double k1, long s1, double k2, long s2) {
+	return k1 < k2 || (k1 == k2 && s1 > s2);
+    }
+
+    private void move(int from, int to) {
+	System.arraycopy(bounds, from * boundsStride, bounds, to * boundsStride, boundsStride);
+	keys[to] = keys[from];
+	seqs[to] = seqs[from];
+	vars[to] = vars[from];
+	depths[to] = depths[from];
+    }
+
+    private void grow() {
+	int cap = 2 * keys.length;
+	bounds = java.util.Arrays.copyOf(bounds, cap * boundsStride);
+	keys = java.util.Arrays.copyOf(keys, cap);
+	seqs = java.util.Arrays.copyOf(seqs, cap);
+	vars = java.util.Arrays.copyOf(vars, cap);
+	depths = java.util.Arrays.copyOf(depths, cap);
+    }
+}
@@ -0,0 +1,72 @@
+package tpBranchEvalTwoCircles;
+
+import util.*;
+
+/**
+ * Priority of a box in a best-first search: the box of smallest
+ * key is processed first.
+ * @see BestFirstBranchEval
+ */
+public interface BoxPriority {
+
+    /**
+     * Return the key of a (non-empty) box.
+     */
+    double key(Box x);
+
+    /**
+     * Largest box (maximal diameter) first.
+     */
+    static BoxPriority largestFirst() {
+	return new BoxPriority() {
+	    public double key(Box x) {
+		return -x.tryMaxDiam();
+	    }
+	};
+    }
+
+    /**
+     * Box with the smallest image first: the key is the sum of the
+     * widths of f(x) for the functions f of the numeric constraints
+     * (a box on which the functions vary little is close to a solution).
+     */
+    static BoxPriority smallestImage(final Constraint[] ctrs) {
+	return new BoxPriority() {
+	    final ThreadLocal<Interval> res = new ThreadLocal<Interval>() {
+		protected Interval initialValue() {
+		    return Interval.EMPTY();
+		}
+	    };
+
+	    public double key(Box x) {
+		Interval y = res.get();
+		double w = 0;
+		for (Constraint c : ctrs) {
+		    if (!(c instanceof NumericConstraint)) continue;
+		    ((NumericConstraint) c).getFunction().eval(x, y);
+		    if (!y.isEmpty()) w += y.getUB() - y.getLB();
+		}
+		return w;
+	    }
+	};
+    }
+
+    /**
+     * Box with the smallest lower bound of f first (to minimize f).
+     */
+    static BoxPriority lowerBound(final Function f) {
+	return new BoxPriority() {
+	    final ThreadLocal<Interval> res = new ThreadLocal<Interval>() {
+		protected Interval initialValue() {
+		    return Interval.EMPTY();
+		}
+	    };
+
+	    public double key(Box x) {
+		Interval y = res.get();
+		f.eval(x, y);
+		return y.isEmpty() ? Double.POSITIVE_INFINITY : y.getLB();
+	    }
+	};
+    }
+}
@@ -1,56 +1,323 @@
 
 package tpBranchEvalTwoCircles;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Stack;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import util.*;
 
 public class BranchEval {
 
+    /* Status of a box, see check() */
+    static final int DISCARDED = 0;  // no solution
+    static final int POSSIBLE = 1;   // may contain solutions
+    static final int CERTIFIED = 2;  // contains a unique solution
+
+    /* one box out of BOX_SAMPLING may be recorded by a BoxEvent
+     * (a power of 2, system property "branchEval.boxSampling") */
+    static final int BOX_SAMPLING = Integer.highestOneBit(Math.max(1, Integer.getInteger("branchEval.boxSampling", 256)));
+
     Constraint[] ctrs;     // list of constraints
 
-    Box[] solutions;       // list of solutions
+    Contractor[] ctcs;     // contractors applied before each bisection
+
+    Bisector bisector;     // bisection strategy
+
+    boolean statsEnabled = false;  // see setStats
 
-    int numSolutions;      // number of solutions found
+    boolean statsTimed = false;
+
+    boolean monitored = false;     // see setMonitored
 
     public BranchEval(Constraint[] _ctrs) {
+	this(_ctrs, new Contractor[0]);
+    }
+
+    public BranchEval(Constraint[] _ctrs, Contractor[] _ctcs) {
+	this(_ctrs, _ctcs, new LargestFirst());
+    }
+
+    public BranchEval(Constraint[] _ctrs, Contractor[] _ctcs, Bisector _bisector) {
 	this.ctrs = _ctrs;
-	this.solutions = new Box[1000];
-	this.numSolutions = 0;
+	this.ctcs = _ctcs;
+	this.bisector = _bisector;
+    }
+
+    /**
+     * Collect statistics (SolverStats) during the next searches, with
+     * the timings if "timed", or not at all (default). They are given
+     * by SearchResult.getStats.
+     */
+    public void setStats(boolean enabled, boolean timed) {
+	this.statsEnabled = enabled;
+	this.statsTimed = enabled && timed;
+    }
+
+    /**
+     * Register each search as an MBean (SolverMonitorMBean) while it
+     * runs, or not (default).
+     */
+    public void setMonitored(boolean monitored) {
+	this.monitored = monitored;
+    }
+
+    /**
+     * Cancel the searches of this solver in progress (see
+     * SolverMonitorMBean.cancel). The solutions found are kept, and
+     * the boxes not explored are given by SearchResult.getUnexplored.
+     */
+    public void cancel() {
+	SearchProgress.cancel(this);
+    }
+
+    /**
+     * New statistics for a search, or null if not enabled.
+     */
+    SolverStats newStats() {
+	return statsEnabled ? new SolverStats(ctrs.length, ctcs.length, statsTimed) : null;
     }
 	
     public boolean solve(Box x0, double eps) {
 
-	this.numSolutions = 0;
+	CollectingSink sols = new CollectingSink();
+	SearchResult r = search(x0, eps, sols);
+	  
+	printSolutions(sols, r.getBranchings());
+	if (r.getStats() != null) System.out.println(r.getStats());
+	return (sols.size() > 0);
+    }
+
+    /**
+     * Search the solutions in x0 and send them to "sink"
+     * as they are found (nothing is printed).
+     *
+     * @return the number of branchings
+     */
+    public long solve(Box x0, double eps, SolutionSink sink) {
+	return search(x0, eps, sink).getBranchings();
+    }
+
+    /**
+     * Same as solve(x0,eps,sink), returning the outcome of the search
+     * (branchings, statistics and boxes left if it was stopped).
+     */
+    public SearchResult search(Box x0, double eps, SolutionSink sink) {
+	return explore(x0, eps, new Stack<Box>(), sink);
+    }
 
-	int N=x0.dim();
-		
-	Stack<Box> s=new Stack<Box>();
-		
-	s.push(x0);
-	int count=0; // number of branchings
+    /**
+     * Same as search(x0,eps,sink), with the stack "s" (cleared first).
+     */
+    SearchResult explore(Box x0, double eps, Stack<Box> s, SolutionSink sink) {
+	SearchProgress progress = SearchProgress.start(this, x0, eps);
+	try {
+	    return explore(x0, eps, s, sink, progress);
+	} finally {
+	    progress.end();
+	}
+    }
+
+    /**
+     * Same as explore(x0,eps,s,sink), reporting to "progress".
+     */
+    private SearchResult explore(Box x0, double eps, Stack<Box> s, SolutionSink sink, SearchProgress progress) {
+
+	int[] vars = new int[16]; // component bisected to get each box of the stack
+	SolverStats st = newStats();
+	int[] depths = new int[16]; // and its depth
+
+	s.clear();
+	vars[0] = -1;
+	depths[0] = 0;
+	s.push(x0.copy()); // x0 is left unchanged by the contractors
+	long count=0; // number of branchings
+	long reported=0; // branchings reported to "progress"
+	double explored = 0; // fraction of x0 explored since the last report
 	
 	while (!s.empty()) {
 
+	    if (count - reported == SearchProgress.PERIOD) {
+	    	boolean cancel = progress.advance(count - reported, explored, s.size());
+	    	reported = count;
+	    	explored = 0;
+	    	if (cancel) break;
+	    }
+
+	    int last = vars[s.size()-1];
+	    int depth = depths[s.size()-1];
+	    if (st != null) st.box(depth, s.size());
 	    Box x=s.pop();
 	    count++;
 	        
-	    for(int i = 0; i < ctrs.length; i++){
-	    	if(ctrs[i].violated(x)){
-	    		
+	    int status = (count & (BOX_SAMPLING-1)) == 0 ? sampledCheck(x, st, s.size()+1)
+		: check(x, st);
+	    if (status == DISCARDED) {
+	    	explored += Math.scalb(1.0, -depth);
+	    	continue;
+	    }
+
+	    Box upper = null;
+	    int var = -1;
+	    if (status != CERTIFIED && !(x.tryMaxDiam() < eps)) {
+	    	long t0 = st == null ? 0 : st.tick();
+	    	var = bisector.variable(x, last);
+	    	upper = split(x, var);
+	    	if (st != null) st.bisected(t0);
+	    }
+
+	    if (upper == null) {
+	    	if (st != null) st.solution(status == CERTIFIED, var < 0);
+	    	explored += Math.scalb(1.0, -depth);
+	    	boolean more = sink.accept(x, status == CERTIFIED);
+	    	progress.found();
+	    	if (!more) break;
+	    } else {
+	    	if (s.size()+2 > vars.length) {
+	    	    vars = Arrays.copyOf(vars, 2*vars.length);
+	    	    depths = Arrays.copyOf(depths, vars.length);
 	    	}
+	    	depths[s.size()] = depths[s.size()+1] = depth+1;
+	    	vars[s.size()] = var;
+	    	s.push(x);
+	    	vars[s.size()] = var;
+	    	s.push(upper);
 	    }
 	}
-	  
-	// Print solutions:
+	progress.advance(count - reported, explored, 0);
+	List<Box> left = new ArrayList<Box>(s);
+	s.clear();
+	return new SearchResult(count, progress.isCancelled(), st, left);
+    }
+
+    /**
+     * Return the solutions in x0, computed lazily: each call to next()
+     * (or hasNext()) explores the tree only until the next solution.
+     * Abandoning the iterator stops the search.
+     */
+    public Iterator<Box> iterator(Box x0, double eps) {
+	return Spliterators.iterator(spliterator(x0, eps));
+    }
+
+    /**
+     * Same as iterator(x0,eps). The spliterator can be split, the
+     * subtrees being then explored independently.
+     */
+    public Spliterator<Box> spliterator(Box x0, double eps) {
+	return new SolutionSpliterator(this, x0, eps);
+    }
+
+    /**
+     * Return the stream of the solutions in x0 (lazy, see iterator).
+     * E.g., stream(x0,eps,false).findFirst() stops at the first solution.
+     */
+    public Stream<Box> stream(Box x0, double eps, boolean parallel) {
+	return StreamSupport.stream(spliterator(x0, eps), parallel);
+    }
+
+    /**
+     * Bisect x along "var" (see Bisector.tryBisect), without exception:
+     * x becomes the lower half and the upper half is returned.
+     *
+     * @return null if x cannot be split (degenerated, or too small
+     * for the floating-point numbers): x is then a solution.
+     */
+    Box split(Box x, int var) {
+	Box upper = x.copy();
+	return bisector.tryBisect(x, var, x, upper) == Interval.BISECTED ? upper : null;
+    }
 
-	System.out.println("Number of potential solutions = " + numSolutions + 
+    /**
+     * Same as check(x,st), recorded by a BoxEvent when the flight
+     * recorder asks for it.
+     */
+    int sampledCheck(Box x, SolverStats st, long frontier) {
+	if (!SearchProgress.flightRecorder()) return check(x, st);
+	BoxEvent e = new BoxEvent();
+	if (!e.isEnabled()) return check(x, st);
+	e.maxDiam = x.tryMaxDiam();
+	e.frontier = frontier;
+	e.begin();
+	int status = check(x, st);
+	e.end();
+	if (e.shouldCommit()) {
+	    e.status = status;
+	    e.commit();
+	}
+	return status;
+    }
+
+    /**
+     * Contract x and check the constraints. A certified box
+     * (see Contractor.contractAndCertify) needs no more bisection.
+     * If st is not null, the contractions and evaluations are
+     * counted (and timed) in it.
+     *
+     * @return DISCARDED, POSSIBLE or CERTIFIED
+     */
+    int check(Box x, SolverStats st) {
+	long t0 = st == null ? 0 : st.tick();
+	int status = POSSIBLE;
+	boolean certified = false;
+	for(int i = 0; i < ctcs.length && !x.isEmpty(); i++){
+	    if (st != null) st.contractions[i]++;
+	    certified |= ctcs[i].contractAndCertify(x);
+	    if (st != null && x.isEmpty()) st.emptied[i]++;
+	}
+	if (x.isEmpty()) {
+	    if (st != null) st.contracted++;
+	    status = DISCARDED;
+	} else {
+	    for(int i = 0; i < ctrs.length; i++){
+		if (st != null) st.evaluations[i]++;
+		if (ctrs[i].violated(x)) {
+		    if (st != null) {
+			st.prunes[i]++;
+			st.violated++;
+		    }
+		    status = DISCARDED;
+		    break;
+		}
+	    }
+	    if (status != DISCARDED && certified) status = CERTIFIED;
+	}
+	if (st != null) st.evaluated(t0);
+	return status;
+    }
+
+    /**
+     * Print the solutions found with "count" branchings.
+     */
+    static void printSolutions(List<Box> solutions, long count) {
+
+	System.out.println("Number of potential solutions = " + solutions.size() + 
 			   " found with " + count + " branchings !");     
+	printSolutionList(solutions);
+    }
+
+    /**
+     * Same as printSolutions(solutions,count), with the number
+     * of certified solutions.
+     */
+    static void printSolutions(CollectingSink sols, long count) {
+
+	System.out.println("Number of potential solutions = " + sols.size() +
+			   " (" + sols.getNbCertified() + " certified)" +
+			   " found with " + count + " branchings !");
+	printSolutionList(sols.getSolutions());
+    }
+
+    private static void printSolutionList(List<Box> solutions) {
 	System.out.print("List of solutions: ");
-	for (int i=0; i < numSolutions; i++) {
-	    System.out.print(solutions[i] + " | ");
+	for (Box x : solutions) {
+	    System.out.print(x + " | ");
 	}
 	System.out.println("");
-	return (numSolutions > 0);
     }
 }
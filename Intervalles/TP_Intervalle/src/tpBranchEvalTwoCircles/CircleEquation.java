@@ -2,9 +2,13 @@
 package tpBranchEvalTwoCircles;
 
 import util.Box;
+import util.Contractor;
+import util.Function;
+import util.HC4Revise;
 import util.IMath;
 import util.Interval;
 import util.Equation;
+import util.MeanValueForm;
 
 /**
  * 2D distance expression from a given point of coordinates (p1,p2)
@@ -14,4 +18,36 @@ public class CircleEquation extends Equation {
     public CircleEquation(double _p1, double _p2, double _radius) {
 	super(new CircleFunction(_p1, _p2, _radius));
     }
+
+    /**
+     * Build the equation with the function evaluated in mean-value
+     * form (intersected with the natural form) if "meanValue" is true.
+     */
+    public CircleEquation(double _p1, double _p2, double _radius, boolean meanValue) {
+	super(meanValue ? new MeanValueForm(new CircleFunction(_p1, _p2, _radius))
+	                : new CircleFunction(_p1, _p2, _radius));
+    }
+
+    /**
+     * Build the equation f(x)=0 (e.g., for a subclass of CircleFunction).
+     */
+    public CircleEquation(CircleFunction f) {
+	super(f);
+    }
+
+    /**
+     * Return the circle function (in natural form).
+     */
+    public CircleFunction getCircle() {
+	Function f = getFunction();
+	if (f instanceof MeanValueForm) f = ((MeanValueForm) f).getFunction();
+	return (CircleFunction) f;
+    }
+
+    /**
+     * Return the HC4 contractor of this equation.
+     */
+    public Contractor contractor() {
+	return new HC4Revise(getCircle().symbolic());
+    }
 }
@@ -2,6 +2,10 @@
 package tpBranchEvalTwoCircles;
 
 import util.Box;
+import util.BoxBlock;
+import util.Expr;
+import util.ExprBuilder;
+import util.ExprFunction;
 import util.IMath;
 import util.Interval;
 import util.Function;
@@ -37,17 +41,162 @@ public class CircleFunction extends Function {
      * Evaluate in a box : f(x1,x2) = (p1 - x1)^2 + (p2 - x2)^2 - radius^2
      */
     public Interval eval(Box x) {
-
-	Interval p1d = new Interval(p1, p1);
-	Interval p2d = new Interval(p2, p2);
-	Interval radiusd = new Interval(radius, radius);
-	
-	// a completer !! 
 	Interval res = Interval.EMPTY();
-	res.set( IMath.sub(IMath.add(IMath.sqr(IMath.sub(p1d, x.get(0))), IMath.sqr(IMath.sub(p2d, x.get(1)))), IMath.sqr(radiusd)));
-	
-	
+	eval(x, res);
 	return res;
+    }
+
+    /**
+     * Evaluate in a box without allocating any temporary interval.
+     */
+    public void eval(Box x, Interval res) {
+
+	if (x.isEmpty()) { res.setToEmpty(); return; }
+
+	// p1 - x1 and p2 - x2
+	double d1_lb = IMath.subLB(p1, x.getUB(0));
+	double d1_ub = IMath.subUB(p1, x.getLB(0));
+	double d2_lb = IMath.subLB(p2, x.getUB(1));
+	double d2_ub = IMath.subUB(p2, x.getLB(1));
+
+	// (p1 - x1)^2 + (p2 - x2)^2
+	double s_lb = IMath.addLB(IMath.sqrLB(d1_lb, d1_ub), IMath.sqrLB(d2_lb, d2_ub));
+	double s_ub = IMath.addUB(IMath.sqrUB(d1_lb, d1_ub), IMath.sqrUB(d2_lb, d2_ub));
+
+	double r2 = radius*radius;
+	res.set(IMath.subLB(s_lb, r2), IMath.subUB(s_ub, r2));
+    }
+
+    /**
+     * Same bounds as eval(Box,Interval), compared to [lb,ub]
+     * without any interval.
+     */
+    public boolean intersects(Box x, double lb, double ub) {
+
+	if (x.isEmpty()) return false;
+
+	double d1_lb = IMath.subLB(p1, x.getUB(0));
+	double d1_ub = IMath.subUB(p1, x.getLB(0));
+	double d2_lb = IMath.subLB(p2, x.getUB(1));
+	double d2_ub = IMath.subUB(p2, x.getLB(1));
+
+	double r2 = radius*radius;
+	double f_lb = IMath.subLB(IMath.addLB(IMath.sqrLB(d1_lb, d1_ub), IMath.sqrLB(d2_lb, d2_ub)), r2);
+	double f_ub = IMath.subUB(IMath.addUB(IMath.sqrUB(d1_lb, d1_ub), IMath.sqrUB(d2_lb, d2_ub)), r2);
+	return f_lb <= ub && f_ub >= lb;
+    }
+
+    public boolean hasGradient() {
+	return true;
+    }
 
+    /**
+     * Partial derivatives: df/dx1 = 2(x1 - p1), df/dx2 = 2(x2 - p2).
+     */
+    public void evalGradient(Box x, Interval[] grad) {
+
+	if (x.isEmpty()) {
+	    for (int i=0; i < x.dim(); i++) grad[i].setToEmpty();
+	    return;
 	}
+	grad[0].set(2*IMath.subLB(x.getLB(0), p1), 2*IMath.subUB(x.getUB(0), p1));
+	grad[1].set(2*IMath.subLB(x.getLB(1), p2), 2*IMath.subUB(x.getUB(1), p2));
+	for (int i=2; i < x.dim(); i++) grad[i].set(0, 0);
+    }
+
+    public boolean hasOutwardRounding() {
+	return true;
+    }
+
+    /**
+     * Same as eval(Box,Interval), each operation being rounded outward.
+     */
+    public void evalOutward(Box x, Interval res) {
+
+	if (x.isEmpty()) { res.setToEmpty(); return; }
+
+	double d1_lb = Math.nextDown(IMath.subLB(p1, x.getUB(0)));
+	double d1_ub = Math.nextUp(IMath.subUB(p1, x.getLB(0)));
+	double d2_lb = Math.nextDown(IMath.subLB(p2, x.getUB(1)));
+	double d2_ub = Math.nextUp(IMath.subUB(p2, x.getLB(1)));
+
+	double s1_lb = Math.max(0, Math.nextDown(IMath.sqrLB(d1_lb, d1_ub)));
+	double s2_lb = Math.max(0, Math.nextDown(IMath.sqrLB(d2_lb, d2_ub)));
+	double s_lb = Math.nextDown(IMath.addLB(s1_lb, s2_lb));
+	double s_ub = Math.nextUp(IMath.addUB(Math.nextUp(IMath.sqrUB(d1_lb, d1_ub)), Math.nextUp(IMath.sqrUB(d2_lb, d2_ub))));
+
+	double r2 = radius*radius;
+	res.set(Math.nextDown(IMath.subLB(s_lb, Math.nextUp(r2))), Math.nextUp(IMath.subUB(s_ub, Math.nextDown(r2))));
+    }
+
+    /**
+     * Same as evalGradient, each operation being rounded outward
+     * (the products by 2 are exact).
+     */
+    public void evalGradientOutward(Box x, Interval[] grad) {
+
+	if (x.isEmpty()) {
+	    for (int i=0; i < x.dim(); i++) grad[i].setToEmpty();
+	    return;
+	}
+	grad[0].set(2*Math.nextDown(IMath.subLB(x.getLB(0), p1)), 2*Math.nextUp(IMath.subUB(x.getUB(0), p1)));
+	grad[1].set(2*Math.nextDown(IMath.subLB(x.getLB(1), p2)), 2*Math.nextUp(IMath.subUB(x.getUB(1), p2)));
+	for (int i=2; i < x.dim(); i++) grad[i].set(0, 0);
+    }
+
+    /**
+     * Evaluate in all the boxes of a block.
+     *
+     * Same result as eval(Box,Interval) on each box, but the loop
+     * has no call and only conditional moves (sqr(d) is
+     * [max(d_lb,-d_ub,0)^2, max(d_lb^2,d_ub^2)]), so that it can be
+     * vectorized by the JIT. The maxima are written as conditional
+     * expressions: Math.max (because of the NaN and -0 cases) is
+     * several times slower here.
+     * An empty box gives [+oo,+oo], which does not contain 0.
+     */
+    public void eval(BoxBlock xs, double[] lb, double[] ub) {
+	double[] x1_lb = xs.lb(0);
+	double[] x1_ub = xs.ub(0);
+	double[] x2_lb = xs.lb(1);
+	double[] x2_ub = xs.ub(1);
+	double r2 = radius*radius;
+	int n = xs.size();
+
+	for (int k = 0; k < n; k++) {
+	    double d1_lb = p1 - x1_ub[k];
+	    double d1_ub = p1 - x1_lb[k];
+	    double d2_lb = p2 - x2_ub[k];
+	    double d2_ub = p2 - x2_lb[k];
+
+	    // distance from 0 to d1 and d2
+	    double m1 = d1_lb > -d1_ub ? d1_lb : -d1_ub;
+	    double m2 = d2_lb > -d2_ub ? d2_lb : -d2_ub;
+	    m1 = m1 > 0 ? m1 : 0;
+	    m2 = m2 > 0 ? m2 : 0;
+
+	    double s1_lb = d1_lb*d1_lb, s1_ub = d1_ub*d1_ub;
+	    double s2_lb = d2_lb*d2_lb, s2_ub = d2_ub*d2_ub;
+
+	    lb[k] = m1*m1 + m2*m2 - r2;
+	    ub[k] = (s1_lb > s1_ub ? s1_lb : s1_ub) + (s2_lb > s2_ub ? s2_lb : s2_ub) - r2;
+	}
+    }
+
+    /**
+     * Build the expression (p1 - x1)^2 + (p2 - x2)^2 - radius^2.
+     * The variables x1 and x2 are b.var(0) and b.var(1).
+     */
+    public Expr expr(ExprBuilder b) {
+	Expr d1 = b.sub(b.cst(p1), b.var(0));
+	Expr d2 = b.sub(b.cst(p2), b.var(1));
+	return b.sub(b.add(b.sqr(d1), b.sqr(d2)), b.sqr(b.cst(radius)));
+    }
+
+    /**
+     * Return the same function in symbolic form.
+     */
+    public ExprFunction symbolic() {
+	return new ExprFunction(expr(new ExprBuilder()));
+    }
 }
@@ -0,0 +1,37 @@
+package tpBranchEvalTwoCircles;
+
+import util.Box;
+
+/**
+ * A set of adjacent solution boxes, represented by its hull.
+ * @see Clustering
+ */
+public class Cluster {
+
+    private final Box hull;
+
+    private final int size;
+
+    Cluster(Box _hull, int _size) {
+	this.hull = _hull;
+	this.size = _size;
+    }
+
+    /**
+     * Return the smallest box containing all the boxes of the cluster.
+     */
+    public Box getHull() {
+	return hull;
+    }
+
+    /**
+     * Return the number of boxes of the cluster.
+     */
+    public int size() {
+	return size;
+    }
+
+    public String toString() {
+	return hull + " (" + size + " boxes)";
+    }
+}
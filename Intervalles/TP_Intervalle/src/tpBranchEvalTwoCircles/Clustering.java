@@ -0,0 +1,170 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import util.Box;
+
+/**
+ * Merge the solution boxes that touch or overlap into clusters.
+ *
+ * The boxes are sorted by the lower bound of one component (the sweep
+ * component) and swept in this order: each box is compared only with
+ * the boxes still "active", i.e., whose sweep component reaches its lower
+ * bound. Two adjacent boxes are merged with a union-find (union by size,
+ * path halving) stored in int arrays.
+ *
+ * The sweep component is the one along which the boxes are the most
+ * spread out (hull width / mean box width), so that few boxes are active
+ * at a time: along a curve tangent to an axis, sweeping along that axis
+ * would compare all the pairs of boxes.
+ */
+public class Clustering {
+
+    /**
+     * Merge the boxes that touch or overlap.
+     */
+    public static List<Cluster> merge(List<Box> boxes) {
+	return merge(boxes, 0);
+    }
+
+    /**
+     * Merge the boxes at a distance less than or equal to "gap" on every
+     * component (e.g., the precision of the solver, if the boxes have been
+     * contracted and do not touch exactly). Empty boxes are ignored.
+     */
+    public static List<Cluster> merge(List<Box> boxes, double gap) {
+	if (gap < 0) throw new IllegalArgumentException("Negative gap");
+
+	// bounds of the non-empty boxes
+	int n = 0;
+	for (Box x : boxes) if (!x.isEmpty()) n++;
+	if (n == 0) return new ArrayList<Cluster>();
+	int dim = boxes.get(0).dim();
+	final int stride = 2 * dim;
+	final double[] b = new double[n * stride];
+	n = 0;
+	for (Box x : boxes) {
+	    if (x.isEmpty()) continue;
+	    if (x.dim() != dim) throw new IllegalArgumentException("Boxes of different dimensions");
+	    x.getBounds(b, (n++) * stride);
+	}
+
+	// sort by lower bound of the sweep component
+	final int lo = 2 * sweepComponent(b, n, dim, gap);
+	Integer[] order = new Integer[n];
+	for (int i = 0; i < n; i++) order[i] = i;
+	Arrays.sort(order, new Comparator<Integer>() {
+	    public int compare(Integer i, Integer j) {
+		return Double.compare(b[i * stride + lo], b[j * stride + lo]);
+	    }
+	});
+
+	// sweep
+	int[] parent = new int[n];
+	int[] size = new int[n];
+	for (int i = 0; i < n; i++) { parent[i] = i; size[i] = 1; }
+	int[] active = new int[n];
+	int nbActive = 0;
+
+	for (int k = 0; k < n; k++) {
+	    int i = order[k];
+	    double lb = b[i * stride + lo];
+	    int m = 0;
+	    for (int a = 0; a < nbActive; a++) {
+		int j = active[a];
+		if (b[j * stride + lo + 1] + gap < lb) continue; // j is behind the sweep line: removed
+		active[m++] = j;
+		if (adjacent(b, i * stride, j * stride, dim, gap)) union(parent, size, i, j);
+	    }
+	    nbActive = m;
+	    active[nbActive++] = i;
+	}
+
+	// hull of each cluster
+	int[] cluster = new int[n];
+	Arrays.fill(cluster, -1);
+	List<double[]> hulls = new ArrayList<double[]>();
+	List<Integer> sizes = new ArrayList<Integer>();
+	for (int k = 0; k < n; k++) {
+	    int i = order[k];
+	    int r = find(parent, i);
+	    if (cluster[r] < 0) {
+		cluster[r] = hulls.size();
+		hulls.add(Arrays.copyOfRange(b, i * stride, (i + 1) * stride));
+		sizes.add(size[r]);
+	    } else {
+		double[] h = hulls.get(cluster[r]);
+		for (int d = 0; d < dim; d++) {
+		    h[2 * d] = Math.min(h[2 * d], b[i * stride + 2 * d]);
+		    h[2 * d + 1] = Math.max(h[2 * d + 1], b[i * stride + 2 * d + 1]);
+		}
+	    }
+	}
+
+	List<Cluster> res = new ArrayList<Cluster>(hulls.size());
+	for (int c = 0; c < hulls.size(); c++) {
+	    Box hull = new Box(dim);
+	    hull.setBounds(hulls.get(c), 0);
+	    res.add(new Cluster(hull, sizes.get(c)));
+	}
+	return res;
+    }
+
+    /**
+     * Return the component along which the boxes are the most spread out.
+     */
+    private static int sweepComponent(double[] b, int n, int dim, double gap) {
+	int best = 0;
+	double bestSpread = -1;
+	for (int d = 0; d < dim; d++) {
+	    double min = Double.POSITIVE_INFINITY;
+	    double max = Double.NEGATIVE_INFINITY;
+	    double width = 0;
+	    for (int i = 0; i < n; i++) {
+		double lb = b[i * 2 * dim + 2 * d];
+		double ub = b[i * 2 * dim + 2 * d + 1];
+		min = Math.min(min, lb);
+		max = Math.max(max, ub);
+		width += ub - lb;
+	    }
+	    double spread = (max - min) / (width / n + gap);
+	    if (spread > bestSpread) { // false if NaN (unbounded boxes)
+		best = d;
+		bestSpread = spread;
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * True if the boxes at offsets i and j in b are at distance <= gap
+     * on every component.
+     */
+    private static boolean adjacent(double[] b, int i, int j, int dim, double gap) {
+	for (int d = 0; d < dim; d++) {
+	    if (b[i + 2 * d] > b[j + 2 * d + 1] + gap || b[j + 2 * d] > b[i + 2 * d + 1] + gap)
+		return false;
+	}
+	return true;
+    }
+
+    private static int find(int[] parent, int i) {
+	while (parent[i] != i) {
+	    parent[i] = parent[parent[i]];
+	    i = parent[i];
+	}
+	return i;
+    }
+
+    private static void union(int[] parent, int[] size, int i, int j) {
+	int ri = find(parent, i);
+	int rj = find(parent, j);
+	if (ri == rj) return;
+	if (size[ri] < size[rj]) { int t = ri; ri = rj; rj = t; }
+	parent[rj] = ri;
+	size[ri] += size[rj];
+    }
+}
@@ -0,0 +1,52 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import util.Box;
+
+/**
+ * Keeps all the solutions in a list.
+ */
+public class CollectingSink implements SolutionSink {
+
+    private final List<Box> solutions = new ArrayList<Box>();
+
+    private final BitSet certified = new BitSet();
+
+    public boolean accept(Box x) {
+	return accept(x, false);
+    }
+
+    public boolean accept(Box x, boolean cert) {
+	if (cert) certified.set(solutions.size());
+	solutions.add(x);
+	return true;
+    }
+
+    /**
+     * Return the solutions, in the order they were found.
+     */
+    public List<Box> getSolutions() {
+	return solutions;
+    }
+
+    /**
+     * Return true if the ith solution is certified.
+     */
+    public boolean isCertified(int i) {
+	return certified.get(i);
+    }
+
+    /**
+     * Return the number of certified solutions.
+     */
+    public int getNbCertified() {
+	return certified.cardinality();
+    }
+
+    public int size() {
+	return solutions.size();
+    }
+}
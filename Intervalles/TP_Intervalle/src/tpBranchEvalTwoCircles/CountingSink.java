@@ -0,0 +1,34 @@
+package tpBranchEvalTwoCircles;
+
+import util.Box;
+
+/**
+ * Only counts the solutions (constant memory).
+ */
+public class CountingSink implements SolutionSink {
+
+    private long count = 0;
+
+    private long certified = 0;
+
+    public boolean accept(Box x) {
+	count++;
+	return true;
+    }
+
+    public boolean accept(Box x, boolean cert) {
+	if (cert) certified++;
+	return accept(x);
+    }
+
+    public long getCount() {
+	return count;
+    }
+
+    /**
+     * Return the number of certified solutions.
+     */
+    public long getNbCertified() {
+	return certified;
+    }
+}
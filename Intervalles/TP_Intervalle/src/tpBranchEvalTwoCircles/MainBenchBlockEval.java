@@ -0,0 +1,74 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.Random;
+
+import util.Box;
+import util.BoxBlock;
+import util.Constraint;
+import util.Equation;
+
+/**
+ * Compare the evaluation of a circle equation box by box
+ * (Equation.violated) with the evaluation of a block of boxes
+ * (Equation.notViolated on a BoxBlock), and with the generic
+ * block evaluation of Constraint (box by box).
+ *
+ * Argument: [number of boxes per block]
+ */
+public class MainBenchBlockEval {
+
+    static final int ROUNDS = 2000;
+
+    public static void main(String[] args) {
+
+	int n = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+
+	Box[] boxes = MainBenchEvalModes.randomBoxes(n, new Random(0));
+	BoxBlock block = new BoxBlock(2, n);
+	for (Box x : boxes) block.add(x);
+
+	final CircleEquation eq = new CircleEquation(2, 1, 2.5);
+	// the same equation, with the generic block evaluation
+	Constraint generic = new Constraint() {
+		public boolean violated(Box box) { return eq.violated(box); }
+	    };
+
+	long[] mask = new long[(n + 63) / 64];
+	long[] ref = new long[(n + 63) / 64];
+	for (int k = 0; k < n; k++)
+	    if (!eq.violated(boxes[k])) ref[k / 64] |= 1L << k;
+
+	for (int pass = 0; pass < 2; pass++) { // first pass = warm-up
+	    long t0 = System.nanoTime();
+	    int feasible = 0;
+	    for (int r = 0; r < ROUNDS; r++)
+		for (int k = 0; k < n; k++)
+		    if (!eq.violated(boxes[k])) feasible++;
+	    long t1 = System.nanoTime();
+	    for (int r = 0; r < ROUNDS; r++)
+		generic.notViolated(block, mask);
+	    check(mask, ref);
+	    long t2 = System.nanoTime();
+	    for (int r = 0; r < ROUNDS; r++)
+		eq.notViolated(block, mask);
+	    check(mask, ref);
+	    long t3 = System.nanoTime();
+
+	    if (pass == 1) {
+		System.out.println(n + " boxes, " + (feasible / ROUNDS) + " not violated (Mevals/s):");
+		System.out.println("  box by box (violated)     " + rate(n, t1 - t0));
+		System.out.println("  block, generic            " + rate(n, t2 - t1));
+		System.out.println("  block, CircleFunction     " + rate(n, t3 - t2));
+	    }
+	}
+    }
+
+    static void check(long[] mask, long[] ref) {
+	for (int j = 0; j < ref.length; j++)
+	    if (mask[j] != ref[j]) throw new IllegalStateException("Block evaluation differs from violated()");
+    }
+
+    static long rate(int n, long nanos) {
+	return (long) ((double) n * ROUNDS / (nanos * 1e-3));
+    }
+}
@@ -0,0 +1,102 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.Random;
+
+import util.Box;
+import util.Expr;
+import util.ExprBuilder;
+import util.ExprFunction;
+import util.Function;
+import util.Interval;
+
+/**
+ * Compare the evaluation time of the different forms of a function:
+ * hand-written (CircleFunction), interpreted tape (ExprFunction) and
+ * generated bytecode (ExprFunction.compile()).
+ *
+ * Problems:
+ * - the two circles of MainBranchEvalTwoCircles;
+ * - n circles through the point (0.3,-0.7), as a single least-squares
+ *   expression sum_i ((x1-p1_i)^2 + (x2-p2_i)^2 - r_i^2)^2.
+ */
+public class MainBenchEvalModes {
+
+    static final int NB_BOXES = 1000;
+    static final int ROUNDS = 500;
+
+    public static void main(String[] args) {
+
+	Box[] boxes = randomBoxes(NB_BOXES, new Random(0));
+
+	// =========== two circles ================
+	CircleFunction[] circles = { new CircleFunction(0, 0, 1), new CircleFunction(2, 1, 2.5) };
+	Function[] hand = circles;
+	Function[] tape = new Function[2];
+	Function[] compiled = new Function[2];
+	for (int i = 0; i < 2; i++) {
+	    tape[i] = circles[i].symbolic();
+	    compiled[i] = circles[i].symbolic().compile();
+	}
+	System.out.println("Two circles (ns per evaluation):");
+	report("hand-written", hand, boxes);
+	report("tape", tape, boxes);
+	report("compiled", compiled, boxes);
+
+	// =========== n circles ==================
+	int n = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+	ExprFunction lsq = nCircles(n, new Random(1));
+	System.out.println(n + " circles, least squares (" + lsq.getTape().size() + " instructions):");
+	report("tape", new Function[] { lsq }, boxes);
+	report("compiled", new Function[] { lsq.compile() }, boxes);
+    }
+
+    /**
+     * Build sum_i ((x1-p1_i)^2 + (x2-p2_i)^2 - r_i^2)^2 for n circles
+     * through (0.3,-0.7).
+     */
+    static ExprFunction nCircles(int n, Random r) {
+	ExprBuilder b = new ExprBuilder();
+	Expr sum = b.cst(0);
+	for (int i = 0; i < n; i++) {
+	    double p1 = 4 * r.nextDouble() - 2;
+	    double p2 = 4 * r.nextDouble() - 2;
+	    double radius = Math.hypot(p1 - 0.3, p2 + 0.7);
+	    Expr c = new CircleFunction(p1, p2, radius).expr(b);
+	    sum = b.add(sum, b.sqr(c));
+	}
+	return new ExprFunction(sum);
+    }
+
+    static Box[] randomBoxes(int n, Random r) {
+	Box[] boxes = new Box[n];
+	for (int i = 0; i < n; i++) {
+	    boxes[i] = new Box(2);
+	    for (int j = 0; j < 2; j++) {
+		double lb = 6 * r.nextDouble() - 3;
+		boxes[i].set(j, lb, lb + r.nextDouble());
+	    }
+	}
+	return boxes;
+    }
+
+    static void report(String name, Function[] f, Box[] boxes) {
+	run(f, boxes, ROUNDS); // warm-up
+	long t = System.nanoTime();
+	double check = run(f, boxes, ROUNDS);
+	long ns = System.nanoTime() - t;
+	System.out.printf("  %-14s %8.2f   (checksum %.3e)%n", name,
+			  (double) ns / ((long) ROUNDS * boxes.length * f.length), check);
+    }
+
+    static double run(Function[] f, Box[] boxes, int rounds) {
+	Interval res = Interval.EMPTY();
+	double sum = 0;
+	for (int k = 0; k < rounds; k++)
+	    for (Box x : boxes)
+		for (Function g : f) {
+		    g.eval(x, res);
+		    sum += res.getUB();
+		}
+	return sum;
+    }
+}
@@ -0,0 +1,59 @@
+package tpBranchEvalTwoCircles;
+
+import util.Box;
+import util.Contractor;
+import util.Interval;
+
+/**
+ * Compare depth-first search (BranchEval) with best-first search
+ * (BestFirstBranchEval) for several priorities: number of branchings
+ * and time to get the first solution and all the solutions.
+ */
+public class MainBestFirst {
+
+    static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+
+	Box x0 = new Box(2, new Interval(-3, 3));
+
+	compare("two circles, EPS=1e-8",
+		new CircleEquation[] { new CircleEquation(0, 0, 1), new CircleEquation(2, 1, 2.5) }, x0, 1e-8);
+	compare("tangent circles, EPS=1e-6",
+		new CircleEquation[] { new CircleEquation(0, 0, 1), new CircleEquation(2, 0, 1) }, x0, 1e-6);
+    }
+
+    static void compare(String name, CircleEquation[] ctrs, Box x0, double eps) {
+	Contractor[] ctcs = new Contractor[0];
+	// distance to the first circle, to be minimized
+	CircleFunction f = ctrs[0].getCircle();
+
+	String[] names = { "depth first", "largest first", "smallest image", "lower bound of f1" };
+	BranchEval[] solvers = {
+	    new BranchEval(ctrs, ctcs),
+	    new BestFirstBranchEval(ctrs, ctcs, BoxPriority.largestFirst()),
+	    new BestFirstBranchEval(ctrs, ctcs, BoxPriority.smallestImage(ctrs)),
+	    new BestFirstBranchEval(ctrs, ctcs, BoxPriority.lowerBound(f))
+	};
+
+	System.out.println(name + ":");
+	System.out.println(String.format("  %-18s %12s %12s %12s %12s %10s",
+					 "", "first: br.", "first: us", "all: br.", "all: us", "solutions"));
+	for (int k = 0; k < solvers.length; k++) {
+	    long first = 0, all = 0, tFirst = 0, tAll = 0;
+	    long nbSols = 0;
+	    for (int r = 0; r <= ROUNDS; r++) { // first round = warm-up
+		long t0 = System.nanoTime();
+		first = solvers[k].solve(x0, eps, new BoundedSink(new CountingSink(), 1));
+		long t1 = System.nanoTime();
+		CountingSink sols = new CountingSink();
+		all = solvers[k].solve(x0, eps, sols);
+		long t2 = System.nanoTime();
+		nbSols = sols.getCount();
+		if (r > 0) { tFirst += t1 - t0; tAll += t2 - t1; }
+	    }
+	    System.out.println(String.format("  %-18s %12d %12d %12d %12d %10d",
+					     names[k], first, tFirst / ROUNDS / 1000, all, tAll / ROUNDS / 1000, nbSols));
+	}
+    }
+}
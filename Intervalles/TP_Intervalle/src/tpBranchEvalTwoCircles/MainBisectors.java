@@ -0,0 +1,52 @@
+package tpBranchEvalTwoCircles;
+
+import util.*;
+
+/**
+ * Compare the bisection strategies on the circle problems: number of
+ * branchings, number of solutions and time of a complete solve.
+ */
+public class MainBisectors {
+
+    static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+
+	CircleEquation[] two = { new CircleEquation(0, 0, 1), new CircleEquation(2, 1, 2.5) };
+	CircleEquation[] tangent = { new CircleEquation(0, 0, 1), new CircleEquation(2, 0, 1) };
+
+	Box square = new Box(2, new Interval(-3, 3));
+	Box flat = new Box(2);  // anisotropic: [-100,100]x[-1.5,1.5]
+	flat.set(0, -100, 100);
+	flat.set(1, -1.5, 1.5);
+
+	compare("two circles, EPS=1e-6", two, square, 1e-6);
+	compare("two circles, flat box, EPS=1e-6", two, flat, 1e-6);
+	compare("tangent circles, EPS=1e-5", tangent, square, 1e-5);
+    }
+
+    static void compare(String name, Constraint[] ctrs, Box x0, double eps) {
+	String[] names = { "largest first", "round robin", "ratio 0.45", "smear" };
+	Bisector[] bisectors = {
+	    new LargestFirst(),
+	    new RoundRobin(),
+	    new RatioBisector(new LargestFirst(), 0.45),
+	    new SmearBisector(ctrs)
+	};
+
+	System.out.println(name + ":");
+	System.out.println(String.format("  %-14s %12s %10s %10s", "", "branchings", "solutions", "us"));
+	for (int k = 0; k < bisectors.length; k++) {
+	    BranchEval csp = new BranchEval(ctrs, new Contractor[0], bisectors[k]);
+	    long count = 0, time = 0, sols = 0;
+	    for (int r = 0; r <= ROUNDS; r++) { // first round = warm-up
+		CountingSink sink = new CountingSink();
+		long t0 = System.nanoTime();
+		count = csp.solve(x0, eps, sink);
+		if (r > 0) time += System.nanoTime() - t0;
+		sols = sink.getCount();
+	    }
+	    System.out.println(String.format("  %-14s %12d %10d %10d", names[k], count, sols, time / ROUNDS / 1000));
+	}
+    }
+}
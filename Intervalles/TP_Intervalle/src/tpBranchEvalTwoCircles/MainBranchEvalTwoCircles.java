@@ -1,8 +1,14 @@
 
 package tpBranchEvalTwoCircles;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import util.Box;
+import util.Contractor;
 import util.Interval;
+import util.Krawczyk;
 
 public class MainBranchEvalTwoCircles{
 
@@ -23,12 +29,32 @@ public class MainBranchEvalTwoCircles{
 	    // ctrs[0] = new CircleEquation(0, 0, 1); 
 	    // ctrs[1] = new CircleEquation(2, 0, 1); 
 	    
-	    BranchEval csp=new BranchEval(ctrs);
+	    // HC4 contractors on the same equations (pass "-nohc4" to disable)
+	    // followed by the Krawczyk contractor (pass "-nonewton" to disable)
+	    List<Contractor> ctcs = new ArrayList<Contractor>();
+	    if (!Arrays.asList(args).contains("-nohc4")) {
+		for (int i = 0; i < ctrs.length; i++)
+		    ctcs.add(ctrs[i].contractor());
+	    }
+	    if (!Arrays.asList(args).contains("-nonewton")) {
+		ctcs.add(new Krawczyk(ctrs));
+	    }
+
+	    BranchEval csp=new BranchEval(ctrs, ctcs.toArray(new Contractor[ctcs.size()]));
+	    // statistics of the search (pass "-stats" to print them)
+	    boolean stats = Arrays.asList(args).contains("-stats");
+	    csp.setStats(stats, true);
 				
 	    System.out.println("Initial box:" + x0);
 
-	    boolean found = csp.solve(x0, EPS);
+	    CollectingSink sols = new CollectingSink();
+	    SearchResult r = csp.search(x0, EPS, sols);
+	    BranchEval.printSolutions(sols, r.getBranchings());
+	    if (stats) System.out.println(r.getStats());
 		
-	    System.out.println("Found = " + found);
+	    System.out.println("Found = " + (sols.size() > 0));
+
+	    // adjacent solutions (at distance <= EPS) belong to the same cluster
+	    System.out.println("Clusters: " + Clustering.merge(sols.getSolutions(), EPS));
 	}
 }
@@ -0,0 +1,63 @@
+package tpBranchEvalTwoCircles;
+
+import util.*;
+
+/**
+ * Number of branchings with the natural evaluation of the functions and
+ * with the mean-value form (intersected with the natural form), at the
+ * same precision, without contractors.
+ *
+ * Problems:
+ * - the two circles of MainBranchEvalTwoCircles, with CircleFunction
+ *   (each variable occurs once, so the natural form is already exact);
+ * - the same circles in expanded form x1*x1 - 2*p1*x1 + x2*x2 - 2*p2*x2
+ *   + p1^2 + p2^2 - r^2 (two occurrences of each variable);
+ * - the tangent circles, in expanded form.
+ */
+public class MainMeanValue {
+
+    static final double EPS = 1e-6;
+
+    public static void main(String[] args) {
+
+	Box x0 = new Box(2, new Interval(-3, 3));
+
+	double[][] two = { { 0, 0, 1 }, { 2, 1, 2.5 } };
+	double[][] tangent = { { 0, 0, 1 }, { 2, 0, 1 } };
+
+	System.out.println(String.format("%-28s %12s %10s %10s", "", "branchings", "solutions", "ms"));
+	for (boolean mv : new boolean[] { false, true }) {
+	    Constraint[] ctrs = { new CircleEquation(0, 0, 1, mv), new CircleEquation(2, 1, 2.5, mv) };
+	    report("two circles" + (mv ? ", mean value" : ""), ctrs, x0);
+	}
+	for (boolean mv : new boolean[] { false, true })
+	    report("expanded circles" + (mv ? ", mean value" : ""), expanded(two, mv), x0);
+	for (boolean mv : new boolean[] { false, true })
+	    report("expanded tangent" + (mv ? ", mean value" : ""), expanded(tangent, mv), x0);
+    }
+
+    static Constraint[] expanded(double[][] circles, boolean mv) {
+	Constraint[] ctrs = new Constraint[circles.length];
+	for (int i = 0; i < circles.length; i++) {
+	    double p1 = circles[i][0], p2 = circles[i][1], r = circles[i][2];
+	    ExprBuilder b = new ExprBuilder();
+	    Expr x1 = b.var(0), x2 = b.var(1);
+	    Expr e = b.add(b.sub(b.mul(x1, x1), b.scalmul(2 * p1, x1)),
+			   b.add(b.sub(b.mul(x2, x2), b.scalmul(2 * p2, x2)),
+				 b.cst(p1 * p1 + p2 * p2 - r * r)));
+	    Function f = new ExprFunction(e);
+	    ctrs[i] = new Equation(mv ? new MeanValueForm(f) : f);
+	}
+	return ctrs;
+    }
+
+    static void report(String name, Constraint[] ctrs, Box x0) {
+	BranchEval csp = new BranchEval(ctrs);
+	csp.solve(x0, EPS, new CountingSink()); // warm-up
+	CountingSink sols = new CountingSink();
+	long t0 = System.nanoTime();
+	long count = csp.solve(x0, EPS, sols);
+	long t1 = System.nanoTime();
+	System.out.println(String.format("%-28s %12d %10d %10.2f", name, count, sols.getCount(), (t1 - t0) * 1e-6));
+    }
+}
@@ -0,0 +1,112 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import util.Box;
+import util.Contractor;
+import util.Interval;
+
+/**
+ * Throughput (instances per second) of the SolverService on random
+ * two-circle problems, compared with a fresh BranchEval per instance
+ * solved in the current thread.
+ *
+ * Arguments: [number of instances] [concurrency] [queue capacity]
+ */
+public class MainSolverService {
+
+    static final double EPS = 1e-4;
+
+    public static void main(String[] args) throws Exception {
+
+	int n = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+	int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+	int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+	Problem[] pbs = randomProblems(n, new Random(0));
+
+	// warm-up
+	fresh(pbs);
+	SolverService service = new SolverService(concurrency, capacity);
+	service(service, pbs);
+
+	long t0 = System.nanoTime();
+	long sols = fresh(pbs);
+	long t1 = System.nanoTime();
+	System.out.println("fresh BranchEval: " + rate(n, t1 - t0) + " instances/s (" + sols + " solutions)");
+
+	t0 = System.nanoTime();
+	sols = service(service, pbs);
+	t1 = System.nanoTime();
+	System.out.println("SolverService (" + concurrency + " concurrent, "
+			   + (service.usesVirtualThreads() ? "virtual" : "platform") + " threads): "
+			   + rate(n, t1 - t0) + " instances/s (" + sols + " solutions)");
+
+	service.shutdown();
+    }
+
+    /**
+     * Two circles through a random point of [-1,1]^2 (so that they
+     * intersect), with random centers in [-2,2]^2, not almost tangent.
+     */
+    static Problem[] randomProblems(int n, Random r) {
+	Problem[] pbs = new Problem[n];
+	for (int i = 0; i < n; i++) {
+	    double px = 2 * r.nextDouble() - 1;
+	    double py = 2 * r.nextDouble() - 1;
+	    double[] c = new double[4];
+	    do {
+		for (int j = 0; j < 4; j++) c[j] = 4 * r.nextDouble() - 2;
+	    } while (nearlyTangent(px, py, c));
+	    CircleEquation[] ctrs = new CircleEquation[2];
+	    Contractor[] ctcs = new Contractor[2];
+	    for (int j = 0; j < 2; j++) {
+		double cx = c[2 * j];
+		double cy = c[2 * j + 1];
+		ctrs[j] = new CircleEquation(cx, cy, Math.hypot(px - cx, py - cy));
+		ctcs[j] = ctrs[j].contractor();
+	    }
+	    pbs[i] = new Problem(ctrs, ctcs, new Box(2, new Interval(-3, 3)), EPS);
+	}
+	return pbs;
+    }
+
+    /**
+     * True if the circles of centers c through (px,py) are almost
+     * tangent (a continuum of boxes would be solutions).
+     */
+    static boolean nearlyTangent(double px, double py, double[] c) {
+	double ux = px - c[0], uy = py - c[1];
+	double vx = px - c[2], vy = py - c[3];
+	double sin = (ux * vy - uy * vx) / (Math.hypot(ux, uy) * Math.hypot(vx, vy));
+	return !(Math.abs(sin) > 0.1);
+    }
+
+    static long fresh(Problem[] pbs) {
+	long sols = 0;
+	for (Problem pb : pbs) {
+	    BranchEval csp = new BranchEval(pb.ctrs, pb.ctcs);
+	    CountingSink sink = new CountingSink();
+	    csp.solve(pb.x0, pb.eps, sink);
+	    sols += sink.getCount();
+	}
+	return sols;
+    }
+
+    static long service(SolverService service, Problem[] pbs) throws Exception {
+	List<CompletableFuture<SolveResult>> results = new ArrayList<CompletableFuture<SolveResult>>(pbs.length);
+	for (int i = 0; i < pbs.length; i++)
+	    results.add(service.submit(pbs[i]));
+	long sols = 0;
+	for (CompletableFuture<SolveResult> f : results)
+	    sols += f.get().getSolutions().size();
+	return sols;
+    }
+
+    static long rate(int n, long nanos) {
+	return (long) (n / (nanos * 1e-9));
+    }
+}
@@ -0,0 +1,293 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.*;
+
+/**
+ * Branch & evaluate running on a fork/join pool.
+ *
+ * A box larger than the granularity threshold "grain" is bisected and
+ * its two halves are forked as separate tasks; a smaller box is explored
+ * sequentially (depth first, as BranchEval) by the task that owns it.
+ * If the initial box is unbounded, its diameter gives no threshold and
+ * the boxes of the first levels of the search tree are forked instead.
+ *
+ * The constraints, contractors and bisector are shared by all the worker
+ * threads (the ones of the util package are thread-safe).
+ */
+public class ParallelBranchEval extends BranchEval {
+
+    /* Boxes with a larger diameter are forked (default: diameter of the
+     * initial box / 2^DEFAULT_GRAIN_LOG2). For an unbounded initial box,
+     * the boxes at depth < DEFAULT_GRAIN_LOG2 * dimension are forked. */
+    static final int DEFAULT_GRAIN_LOG2 = 8;
+
+    ForkJoinPool pool;
+
+    public ParallelBranchEval(Constraint[] _ctrs, Contractor[] _ctcs, Bisector _bisector, ForkJoinPool _pool) {
+	super(_ctrs, _ctcs, _bisector);
+	this.pool = _pool;
+    }
+
+    public ParallelBranchEval(Constraint[] _ctrs, Contractor[] _ctcs, ForkJoinPool _pool) {
+	this(_ctrs, _ctcs, new LargestFirst(), _pool);
+    }
+
+    public ParallelBranchEval(Constraint[] _ctrs, Contractor[] _ctcs) {
+	this(_ctrs, _ctcs, new ForkJoinPool());
+    }
+
+    public ParallelBranchEval(Constraint[] _ctrs) {
+	this(_ctrs, new Contractor[0]);
+    }
+
+    public SearchResult search(Box x0, double eps, SolutionSink sink) {
+	double grain = x0.tryMaxDiam() / (1 << DEFAULT_GRAIN_LOG2);
+	if (grain < Double.POSITIVE_INFINITY) return search(x0, eps, grain, 0, sink);
+	return search(x0, eps, Double.POSITIVE_INFINITY, forkDepth(x0), sink);
+    }
+
+    /**
+     * Return the depth above which the boxes are forked when the
+     * diameter of x0 gives no granularity threshold (0 otherwise).
+     */
+    static int forkDepth(Box x0) {
+	return x0.tryMaxDiam() < Double.POSITIVE_INFINITY ? 0 : DEFAULT_GRAIN_LOG2 * x0.dim();
+    }
+
+    /**
+     * Solve with the granularity threshold "grain" (a diameter):
+     * only boxes wider than "grain" are forked.
+     *
+     * @return the number of branchings
+     */
+    public long solve(Box x0, double eps, double grain, SolutionSink sink) {
+	return search(x0, eps, grain, sink).getBranchings();
+    }
+
+    /**
+     * Same as solve(x0,eps,grain,sink), returning the outcome of the
+     * search (see BranchEval.search).
+     */
+    public SearchResult search(Box x0, double eps, double grain, SolutionSink sink) {
+	return search(x0, eps, grain, 0, sink);
+    }
+
+    /**
+     * Same as search(x0,eps,grain,sink), also forking the boxes at
+     * depth < forkDepth.
+     */
+    private SearchResult search(Box x0, double eps, double grain, int forkDepth, SolutionSink sink) {
+
+	Search search = new Search(eps, grain, forkDepth, sink, newStats(), SearchProgress.start(this, x0, eps));
+
+	try {
+	    pool.invoke(new BranchTask(x0.copy(), -1, 0, search));
+	} finally {
+	    search.progress.end();
+	}
+
+	return new SearchResult(search.count.get(), search.progress.isCancelled(), search.stats,
+				new ArrayList<Box>(search.unexplored));
+    }
+
+    /**
+     * State of one search (shared by the tasks).
+     */
+    static class Search {
+	final double eps;
+	final double grain;
+	final int forkDepth;
+	final SolutionSink sink;
+	final AtomicLong count = new AtomicLong(); // number of branchings
+	volatile boolean stopped = false;          // set when the sink refuses a solution, or cancelled
+	final SolverStats stats;                   // statistics (or null), merged from the tasks
+	final SearchProgress progress;             // the frontier is unknown (tasks)
+	final List<Box> unexplored = Collections.synchronizedList(new ArrayList<Box>());
+
+	Search(double eps, double grain, int forkDepth, SolutionSink sink, SolverStats stats, SearchProgress progress) {
+	    this.eps = eps;
+	    this.grain = grain;
+	    this.forkDepth = forkDepth;
+	    this.sink = sink;
+	    this.stats = stats;
+	    this.progress = progress;
+	}
+
+	/**
+	 * Return true if the halves of a box (diameter diam) at the given
+	 * depth must be forked.
+	 */
+	boolean fork(double diam, int depth) {
+	    return diam > grain || depth < forkDepth;
+	}
+
+	/**
+	 * Record boxes not explored and stop the search.
+	 */
+	void left(Collection<Box> boxes) {
+	    stopped = true;
+	    unexplored.addAll(boxes);
+	}
+
+	/**
+	 * Add the statistics of a task.
+	 */
+	synchronized void merge(SolverStats st) {
+	    stats.merge(st);
+	}
+
+	/**
+	 * Send a solution to the sink, or record it as not explored
+	 * if the search is stopped.
+	 *
+	 * @return false if the search must stop
+	 */
+	boolean found(Box x, boolean certified) {
+	    synchronized (sink) {
+		if (stopped) {
+		    unexplored.add(x);
+		    return false;
+		}
+		if (!sink.accept(x, certified)) stopped = true;
+	    }
+	    progress.found();
+	    return !stopped;
+	}
+    }
+
+    /**
+     * Explore the sub-tree rooted at a box.
+     */
+    class BranchTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	final Box x;
+	final int last;  // component bisected to get x
+	final int depth;
+	final Search search;
+
+	BranchTask(Box x, int last, int depth, Search search) {
+	    this.x = x;
+	    this.last = last;
+	    this.depth = depth;
+	    this.search = search;
+	}
+
+	protected void compute() {
+	    if (search.stopped || search.progress.isCancelled()) {
+		search.left(Collections.singletonList(x));
+		return;
+	    }
+	    search.count.incrementAndGet();
+	    SolverStats st = search.stats == null ? null : newStats();
+	    if (st != null) st.box(depth, 1);
+
+	    int status = check(x, st);
+	    if (status == DISCARDED) {
+		search.progress.advance(1, Math.scalb(1.0, -depth), -1);
+		if (st != null) search.merge(st);
+		return;
+	    }
+
+	    double diam = x.tryMaxDiam();
+	    Box upper = null;
+	    int var = -1;
+	    if (status != CERTIFIED && !(diam < search.eps)) {
+		long t0 = st == null ? 0 : st.tick();
+		var = bisector.variable(x, last);
+		upper = split(x, var);
+		if (st != null) st.bisected(t0);
+	    }
+
+	    search.progress.advance(1, upper == null ? Math.scalb(1.0, -depth) : 0, -1);
+	    if (upper == null) {
+		if (st != null) st.solution(status == CERTIFIED, var < 0);
+		search.found(x, status == CERTIFIED);
+	    } else if (!search.fork(diam, depth)) {
+		sequential(x, upper, var, st);
+	    }
+	    if (st != null) search.merge(st);
+	    if (upper != null && search.fork(diam, depth))
+		invokeAll(new BranchTask(x, var, depth + 1, search),
+			  new BranchTask(upper, var, depth + 1, search));
+	}
+
+	/**
+	 * Depth-first exploration of b1 and b2 (obtained by bisecting
+	 * the component "var") by the current thread.
+	 */
+	private void sequential(Box b1, Box b2, int var, SolverStats st) {
+	    Stack<Box> s = new Stack<Box>();
+	    int[] vars = new int[16]; // component bisected to get each box of the stack
+	    int[] depths = new int[16]; // and its depth
+	    vars[0] = var;
+	    s.push(b1);
+	    vars[1] = var;
+	    s.push(b2);
+	    depths[0] = depths[1] = depth + 1;
+	    long n = 0;
+	    long reported = 0;    // branchings reported to "progress"
+	    double explored = 0;  // fraction of x0 explored since the last report
+
+	    while (!s.empty() && !search.stopped) {
+		if (n - reported == SearchProgress.PERIOD) {
+		    if (search.progress.advance(n - reported, explored, -1)) search.stopped = true;
+		    reported = n;
+		    explored = 0;
+		    continue;
+		}
+		int last = vars[s.size() - 1];
+		int d = depths[s.size() - 1];
+		if (st != null) st.box(d, s.size());
+		Box b = s.pop();
+		n++;
+
+		int status = (n & (BOX_SAMPLING - 1)) == 0 ? sampledCheck(b, st, s.size() + 1)
+		    : check(b, st);
+		if (status == DISCARDED) {
+		    explored += Math.scalb(1.0, -d);
+		    continue;
+		}
+
+		Box upper = null;
+		int v = -1;
+		if (status != CERTIFIED && !(b.tryMaxDiam() < search.eps)) {
+		    long t0 = st == null ? 0 : st.tick();
+		    v = bisector.variable(b, last);
+		    upper = split(b, v);
+		    if (st != null) st.bisected(t0);
+		}
+
+		if (upper == null) {
+		    if (st != null) st.solution(status == CERTIFIED, v < 0);
+		    explored += Math.scalb(1.0, -d);
+		    if (!search.found(b, status == CERTIFIED)) break;
+		} else {
+		    if (s.size() + 2 > vars.length) {
+			vars = Arrays.copyOf(vars, 2 * vars.length);
+			depths = Arrays.copyOf(depths, vars.length);
+		    }
+		    depths[s.size()] = depths[s.size() + 1] = d + 1;
+		    vars[s.size()] = v;
+		    s.push(b);
+		    vars[s.size()] = v;
+		    s.push(upper);
+		}
+	    }
+	    search.progress.advance(n - reported, explored, -1);
+	    if (!s.empty()) search.left(s);
+	    search.count.addAndGet(n);
+	}
+    }
+}
@@ -0,0 +1,31 @@
+package tpBranchEvalTwoCircles;
+
+import util.Box;
+import util.Constraint;
+import util.Contractor;
+
+/**
+ * A constraint satisfaction problem: find the boxes of diameter
+ * less than eps in x0 that satisfy the constraints.
+ */
+public class Problem {
+
+    public final Constraint[] ctrs;   // constraints
+
+    public final Contractor[] ctcs;   // contractors (may be empty)
+
+    public final Box x0;              // initial box
+
+    public final double eps;          // precision
+
+    public Problem(Constraint[] _ctrs, Contractor[] _ctcs, Box _x0, double _eps) {
+	this.ctrs = _ctrs;
+	this.ctcs = _ctcs;
+	this.x0 = _x0;
+	this.eps = _eps;
+    }
+
+    public Problem(Constraint[] _ctrs, Box _x0, double _eps) {
+	this(_ctrs, new Contractor[0], _x0, _eps);
+    }
+}
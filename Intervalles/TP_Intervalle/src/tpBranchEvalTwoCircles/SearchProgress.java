@@ -0,0 +1,241 @@
+package tpBranchEvalTwoCircles;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import jdk.jfr.FlightRecorder;
+
+import util.Box;
+
+/**
+ * Progress of a running search, readable by other threads.
+ *
+ * The solver reports its boxes by batches (see advance, every
+ * PERIOD boxes), so that the search loop only pays for an atomic
+ * addition from time to time, and learns then if the search is
+ * cancelled. The searches running are registered between start() and
+ * end(): the flight recorder reads them to emit the SolveProgressEvent
+ * and, if the solver is monitored, they are registered as MBeans.
+ *
+ * The event classes are used only once the flight recorder is
+ * initialized (a recording was started), as the registration of the
+ * first one costs a few hundred milliseconds.
+ */
+class SearchProgress implements SolverMonitorMBean {
+
+    /* boxes between two reports of a solver (a power of 2) */
+    static final int PERIOD = 1024;
+
+    private static final Set<SearchProgress> RUNNING = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private static volatile boolean hooked = false;  // periodic event registered
+
+    final BranchEval owner;
+    final String solver;
+    final int dimension;
+    final int constraints;
+    final int contractors;
+    final double eps;
+    final long startNanos = System.nanoTime();
+
+    private final AtomicLong branchings = new AtomicLong();
+    private final AtomicLong solutions = new AtomicLong();
+    private final DoubleAdder explored = new DoubleAdder();
+    private volatile long frontier = 0;
+    private volatile boolean cancelled = false;
+
+    private ObjectName name = null;  // if registered
+
+    private SolveEvent event = null;  // if the flight recorder was initialized at start
+
+    /* last progress event (flight recorder thread only) */
+    private long lastBranchings = 0;
+    private long lastNanos = startNanos;
+
+    private SearchProgress(BranchEval s, Box x0, double eps) {
+	this.owner = s;
+	this.solver = s.getClass().getSimpleName();
+	this.dimension = x0.dim();
+	this.constraints = s.ctrs.length;
+	this.contractors = s.ctcs.length;
+	this.eps = eps;
+    }
+
+    /**
+     * Register a new search of s in x0 (and emit a SolveStartEvent).
+     */
+    static SearchProgress start(BranchEval s, Box x0, double eps) {
+	SearchProgress p = new SearchProgress(s, x0, eps);
+	if (flightRecorder()) {
+	    SolveStartEvent e = new SolveStartEvent();
+	    if (e.shouldCommit()) {
+		e.solver = p.solver;
+		e.dimension = p.dimension;
+		e.constraints = p.constraints;
+		e.contractors = p.contractors;
+		e.eps = eps;
+		e.commit();
+	    }
+	    p.event = new SolveEvent();
+	    p.event.begin();
+	}
+	if (s.monitored) p.register();
+	RUNNING.add(p);
+	return p;
+    }
+
+    /**
+     * Return true if the flight recorder is initialized (and register
+     * the periodic event the first time).
+     */
+    static boolean flightRecorder() {
+	if (!FlightRecorder.isInitialized()) return false;
+	if (!hooked) hook();
+	return true;
+    }
+
+    private static synchronized void hook() {
+	if (hooked) return;
+	FlightRecorder.addPeriodicEvent(SolveProgressEvent.class, new Runnable() {
+		public void run() {
+		    for (SearchProgress p : RUNNING) p.emitProgress();
+		}
+	    });
+	hooked = true;
+    }
+
+    /**
+     * Cancel the running searches of s.
+     */
+    static void cancel(BranchEval s) {
+	for (SearchProgress p : RUNNING)
+	    if (p.owner == s) p.cancel();
+    }
+
+    private void register() {
+	try {
+	    name = new ObjectName("tpBranchEvalTwoCircles:type=Solver,name=" + solver + "-" + IDS.incrementAndGet());
+	    ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this, SolverMonitorMBean.class), name);
+	} catch (JMException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    /**
+     * Report "boxes" more boxes processed, completing the fraction
+     * "explored" of the initial box, with "frontier" boxes waiting
+     * (-1 if unknown).
+     *
+     * @return true if the search is cancelled
+     */
+    boolean advance(long boxes, double explored, long frontier) {
+	branchings.addAndGet(boxes);
+	this.explored.add(explored);
+	this.frontier = frontier;
+	if (!hooked) flightRecorder();  // recording started during the search
+	return cancelled;
+    }
+
+    /**
+     * Report a solution.
+     */
+    void found() {
+	solutions.incrementAndGet();
+    }
+
+    public String getSolver() {
+	return solver;
+    }
+
+    public int getDimension() {
+	return dimension;
+    }
+
+    public long getBranchings() {
+	return branchings.get();
+    }
+
+    public long getSolutions() {
+	return solutions.get();
+    }
+
+    public long getFrontier() {
+	return frontier;
+    }
+
+    public double getExploredFraction() {
+	return Math.min(1, explored.sum());
+    }
+
+    public double getElapsedSeconds() {
+	return (System.nanoTime() - startNanos) * 1e-9;
+    }
+
+    public double getEtaSeconds() {
+	double f = getExploredFraction();
+	return f > 0 ? getElapsedSeconds() * (1 - f) / f : Double.NaN;
+    }
+
+    public boolean isCancelled() {
+	return cancelled;
+    }
+
+    public void cancel() {
+	cancelled = true;
+    }
+
+    /**
+     * Unregister the search (and emit a SolveEvent).
+     */
+    void end() {
+	RUNNING.remove(this);
+	if (name != null) {
+	    try {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+	    } catch (JMException e) {
+		throw new IllegalStateException(e);
+	    }
+	}
+	frontier = 0;
+	SolveEvent e = event;
+	if (e == null) return;
+	e.end();
+	if (e.shouldCommit()) {
+	    e.solver = solver;
+	    e.dimension = dimension;
+	    e.constraints = constraints;
+	    e.contractors = contractors;
+	    e.eps = eps;
+	    e.branchings = branchings.get();
+	    e.solutions = solutions.get();
+	    e.commit();
+	}
+    }
+
+    private void emitProgress() {
+	SolveProgressEvent e = new SolveProgressEvent();
+	if (!e.shouldCommit()) return;
+	long now = System.nanoTime();
+	long b = branchings.get();
+	e.solver = solver;
+	e.dimension = dimension;
+	e.branchings = b;
+	e.solutions = solutions.get();
+	e.frontier = frontier;
+	e.explored = getExploredFraction();
+	e.rate = now > lastNanos ? (b - lastBranchings) * 1e9 / (now - lastNanos) : 0;
+	e.elapsed = now - startNanos;
+	e.commit();
+	lastBranchings = b;
+	lastNanos = now;
+    }
+}
@@ -0,0 +1,59 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.List;
+
+import util.Box;
+
+/**
+ * Outcome of one search of a solver (see BranchEval.search). The
+ * solutions are those sent to the sink.
+ */
+public class SearchResult {
+
+    private final long branchings;
+
+    private final boolean cancelled;
+
+    private final SolverStats stats;
+
+    private final List<Box> unexplored;
+
+    SearchResult(long _branchings, boolean _cancelled, SolverStats _stats, List<Box> _unexplored) {
+	this.branchings = _branchings;
+	this.cancelled = _cancelled;
+	this.stats = _stats;
+	this.unexplored = _unexplored;
+    }
+
+    /**
+     * Return the number of branchings.
+     */
+    public long getBranchings() {
+	return branchings;
+    }
+
+    /**
+     * Return true if the search was cancelled (see BranchEval.cancel).
+     */
+    public boolean isCancelled() {
+	return cancelled;
+    }
+
+    /**
+     * Return the statistics of the search (null if they were not
+     * collected, see BranchEval.setStats). The frontier is the stack
+     * (or heap) of the search, or of a worker for the parallel solvers.
+     */
+    public SolverStats getStats() {
+	return stats;
+    }
+
+    /**
+     * Return the boxes not explored, if the search was cancelled or
+     * stopped by the sink (empty otherwise). Searching them with the
+     * same sink gives the solutions not found yet.
+     */
+    public List<Box> getUnexplored() {
+	return unexplored;
+    }
+}
@@ -0,0 +1,129 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Append-only buffer of boxes shared by several threads, read once
+ * the writers are done (used to sort the solutions of the
+ * deterministic search).
+ *
+ * Boxes are stored as bounds and search paths in segments of
+ * SEGMENT_SIZE entries. A writer reserves an index with a single
+ * atomic increment; only the creation of a segment takes a lock, and
+ * the directory of the segments is doubled when it is full, so the
+ * memory grows with the number of boxes and there is no limit other
+ * than the heap.
+ */
+class SolutionBuffer {
+
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    /**
+     * SEGMENT_SIZE entries.
+     */
+    private static final class Segment {
+	final double[] bounds;
+	final long[][] paths;
+	final boolean[] certified;
+
+	Segment(int boundsStride) {
+	    this.bounds = new double[SEGMENT_SIZE * boundsStride];
+	    this.paths = new long[SEGMENT_SIZE][];
+	    this.certified = new boolean[SEGMENT_SIZE];
+	}
+    }
+
+    private final int boundsStride;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /* replaced (under the lock) by a copy twice larger when full */
+    private volatile AtomicReferenceArray<Segment> segments = new AtomicReferenceArray<Segment>(4);
+
+    SolutionBuffer(int dim) {
+	this.boundsStride = 2 * dim;
+    }
+
+    /**
+     * Append a box (bounds b, search path "path" of a box at the given
+     * depth and whether it is a certified solution).
+     */
+    void add(double[] b, long[] path, int depth, boolean cert) {
+	int i = size.getAndIncrement();
+	int k = i & (SEGMENT_SIZE - 1);
+	Segment s = segment(i >>> SEGMENT_SHIFT);
+	System.arraycopy(b, 0, s.bounds, k * boundsStride, boundsStride);
+	s.paths[k] = Arrays.copyOf(path, (depth + 63) >> 6);
+	s.certified[k] = cert;
+    }
+
+    /**
+     * Return the segment "seg", created if needed.
+     */
+    private Segment segment(int seg) {
+	AtomicReferenceArray<Segment> dir = segments;
+	Segment s = seg < dir.length() ? dir.get(seg) : null;
+	if (s != null) return s;
+	synchronized (this) {
+	    dir = segments;
+	    if (seg >= dir.length()) {
+		AtomicReferenceArray<Segment> larger = new AtomicReferenceArray<Segment>(Math.max(2 * dir.length(), seg + 1));
+		for (int j = 0; j < dir.length(); j++) larger.set(j, dir.get(j));
+		segments = dir = larger;
+	    }
+	    s = dir.get(seg);
+	    if (s == null) {
+		s = new Segment(boundsStride);
+		dir.set(seg, s);
+	    }
+	    return s;
+	}
+    }
+
+    /**
+     * Return the number of boxes added. The writers must be done.
+     */
+    int size() {
+	return size.get();
+    }
+
+    private Segment segmentOf(int i) {
+	return segments.get(i >>> SEGMENT_SHIFT);
+    }
+
+    /**
+     * Copy the bounds of the ith box into b.
+     */
+    void getBounds(int i, double[] b) {
+	System.arraycopy(segmentOf(i).bounds, (i & (SEGMENT_SIZE - 1)) * boundsStride, b, 0, boundsStride);
+    }
+
+    /**
+     * Return true if the ith box is a certified solution.
+     */
+    boolean isCertified(int i) {
+	return segmentOf(i).certified[i & (SEGMENT_SIZE - 1)];
+    }
+
+    /**
+     * Compare the search paths of the ith and jth boxes
+     * (lexicographic order on the bits, from the root).
+     * The bits after the depth of a box are not significant,
+     * so the boxes must be leaves of the search tree: their paths
+     * then differ before the end of the shorter one.
+     */
+    int comparePaths(int i, int j) {
+	long[] pi = segmentOf(i).paths[i & (SEGMENT_SIZE - 1)];
+	long[] pj = segmentOf(j).paths[j & (SEGMENT_SIZE - 1)];
+	for (int w = 0; w < Math.min(pi.length, pj.length); w++) {
+	    // unsigned comparison
+	    long a = pi[w] ^ Long.MIN_VALUE;
+	    long b = pj[w] ^ Long.MIN_VALUE;
+	    if (a != b) return a < b ? -1 : 1;
+	}
+	return pi.length - pj.length;
+    }
+}
@@ -0,0 +1,359 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import util.Box;
+
+/**
+ * Immutable R-tree over a set of boxes (typically, the solutions of a
+ * solver), for point, box and nearest-box queries.
+ *
+ * The tree is bulk-loaded with the Sort-Tile-Recursive (STR) algorithm:
+ * at each level, the entries are sorted by the center of their first
+ * component and cut into slabs, each slab is sorted by the next component
+ * and so on; consecutive runs of NODE_SIZE entries then form the nodes of
+ * the next level.
+ *
+ * Everything is stored in flat primitive arrays: the bounds of the boxes
+ * (in STR order) and, for each node, its bounds and the range of its
+ * children (boxes for a leaf, nodes otherwise). Leaves are the first
+ * nodes and the root is the last one.
+ */
+public class SolutionIndex {
+
+    static final int NODE_SIZE = 16;
+
+    private final int dim;
+
+    private final int stride;         // 2*dim
+
+    private final int size;           // number of boxes
+
+    private final double[] boxes;     // bounds of the boxes, in STR order
+
+    private final double[] nodes;     // bounds of the nodes
+
+    private final int[] first;        // index of the first child of a node
+
+    private final int[] count;        // number of children of a node
+
+    private final int nbLeaves;
+
+    private final int height;         // number of levels of nodes
+
+    /**
+     * Build the index of the (non-empty) boxes. The boxes are copied.
+     */
+    public SolutionIndex(List<Box> _boxes) {
+	int n = 0;
+	for (Box x : _boxes) if (!x.isEmpty()) n++;
+	this.size = n;
+	this.dim = n == 0 ? 1 : _boxes.get(0).dim();
+	this.stride = 2 * dim;
+
+	// boxes, in STR order
+	double[] b = new double[n * stride];
+	n = 0;
+	for (Box x : _boxes) {
+	    if (x.isEmpty()) continue;
+	    if (x.dim() != dim) throw new IllegalArgumentException("Boxes of different dimensions");
+	    x.getBounds(b, (n++) * stride);
+	}
+	this.boxes = reorder(b, strOrder(b, n), new int[0][]);
+
+	// levels of nodes, from the leaves to the root. The children
+	// of a node are numbered from the beginning of the level below.
+	List<double[]> levelBounds = new ArrayList<double[]>();
+	List<int[]> levelFirst = new ArrayList<int[]>();
+	List<int[]> levelCount = new ArrayList<int[]>();
+	double[] children = boxes;
+	int nbChildren = n;
+	int total = 0;
+	do {
+	    int m = Math.max(1, (nbChildren + NODE_SIZE - 1) / NODE_SIZE);
+	    double[] nb = new double[m * stride];
+	    int[][] links = { new int[m], new int[m] }; // first child, number of children
+	    for (int k = 0; k < m; k++) {
+		links[0][k] = k * NODE_SIZE;
+		links[1][k] = Math.min(NODE_SIZE, nbChildren - k * NODE_SIZE);
+		hull(children, links[0][k], links[1][k], nb, k);
+	    }
+	    if (m > 1) nb = reorder(nb, strOrder(nb, m), links); // for the next level
+	    levelBounds.add(nb);
+	    levelFirst.add(links[0]);
+	    levelCount.add(links[1]);
+	    total += m;
+	    children = nb;
+	    nbChildren = m;
+	} while (nbChildren > 1);
+
+	this.height = levelBounds.size();
+	this.nbLeaves = levelFirst.get(0).length;
+	this.nodes = new double[total * stride];
+	this.first = new int[total];
+	this.count = new int[total];
+	int pos = 0;     // index of the first node of the level
+	int below = 0;   // index of the first node of the level below
+	for (int l = 0; l < height; l++) {
+	    int m = levelFirst.get(l).length;
+	    System.arraycopy(levelBounds.get(l), 0, nodes, pos * stride, m * stride);
+	    System.arraycopy(levelCount.get(l), 0, count, pos, m);
+	    for (int k = 0; k < m; k++)
+		first[pos + k] = (l == 0 ? 0 : below) + levelFirst.get(l)[k];
+	    below = pos;
+	    pos += m;
+	}
+    }
+
+    /**
+     * Return the number of boxes.
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Return (a copy of) the ith box (in the order of the index).
+     */
+    public Box get(int i) {
+	if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Bad box index");
+	Box x = new Box(dim);
+	x.setBounds(boxes, i * stride);
+	return x;
+    }
+
+    /**
+     * Return the index of a box containing the point p, or -1.
+     */
+    public int findContaining(double... p) {
+	if (size == 0) return -1;
+	if (p.length != dim) throw new IllegalArgumentException("Bad point dimension");
+	double[] q = new double[stride];
+	for (int d = 0; d < dim; d++) {
+	    q[2 * d] = p[d];
+	    q[2 * d + 1] = p[d];
+	}
+	int[][] res = { new int[1] };
+	return search(q, res, 1) > 0 ? res[0][0] : -1;
+    }
+
+    /**
+     * Return true if some box contains the point p.
+     */
+    public boolean contains(double... p) {
+	return findContaining(p) >= 0;
+    }
+
+    /**
+     * Return true if some box intersects the box q.
+     */
+    public boolean intersects(Box q) {
+	return search(bounds(q), new int[][] { new int[1] }, 1) > 0;
+    }
+
+    /**
+     * Return (copies of) the boxes intersecting q.
+     */
+    public List<Box> intersecting(Box q) {
+	int[][] res = { new int[NODE_SIZE] };
+	int n = search(bounds(q), res, size);
+	List<Box> l = new ArrayList<Box>(n);
+	for (int k = 0; k < n; k++)
+	    l.add(get(res[0][k]));
+	return l;
+    }
+
+    /**
+     * Return the index of a box at minimal (Euclidean) distance
+     * from the point p, or -1 if there is no box.
+     */
+    public int findNearest(double... p) {
+	if (size == 0) return -1;
+	if (p.length != dim) throw new IllegalArgumentException("Bad point dimension");
+
+	// depth first, children visited by increasing distance,
+	// subtrees farther than the best box pruned
+	int[] stack = new int[height * NODE_SIZE + 1];
+	double[] dist = new double[height * NODE_SIZE + 1];
+	int top = 0;
+	stack[top] = nodes.length / stride - 1;
+	dist[top++] = 0;
+	int best = -1;
+	double bestDist = Double.POSITIVE_INFINITY;
+	double[] d = new double[NODE_SIZE];
+	int[] c = new int[NODE_SIZE];
+
+	while (top > 0) {
+	    top--;
+	    if (dist[top] >= bestDist) continue;
+	    int node = stack[top];
+	    int nb = count[node];
+	    if (node < nbLeaves) {
+		for (int k = 0; k < nb; k++) {
+		    double dk = dist2(boxes, (first[node] + k) * stride, p);
+		    if (dk < bestDist) {
+			best = first[node] + k;
+			bestDist = dk;
+		    }
+		}
+	    } else {
+		// sort the children by decreasing distance (insertion sort),
+		// so that the closest one is on top of the stack
+		for (int k = 0; k < nb; k++) {
+		    int child = first[node] + k;
+		    double dk = dist2(nodes, child * stride, p);
+		    int j = k;
+		    while (j > 0 && d[j - 1] < dk) {
+			d[j] = d[j - 1];
+			c[j] = c[j - 1];
+			j--;
+		    }
+		    d[j] = dk;
+		    c[j] = child;
+		}
+		for (int k = 0; k < nb; k++) {
+		    if (d[k] >= bestDist) continue;
+		    stack[top] = c[k];
+		    dist[top++] = d[k];
+		}
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * Return (a copy of) a box at minimal distance from
+     * the point p, or null if there is no box.
+     */
+    public Box nearest(double... p) {
+	int i = findNearest(p);
+	return i < 0 ? null : get(i);
+    }
+
+    /**
+     * Store in res[0] the indices of (at most max) boxes intersecting
+     * the box of bounds q (res[0] is replaced by a larger array if needed).
+     *
+     * @return the number of indices stored
+     */
+    private int search(double[] q, int[][] res, int max) {
+	if (size == 0) return 0;
+	int[] stack = new int[height * NODE_SIZE + 1];
+	int top = 0;
+	stack[top++] = nodes.length / stride - 1;
+	int n = 0;
+
+	while (top > 0) {
+	    int node = stack[--top];
+	    if (!intersects(nodes, node * stride, q)) continue;
+	    int f = first[node];
+	    if (node < nbLeaves) {
+		for (int k = f; k < f + count[node]; k++) {
+		    if (intersects(boxes, k * stride, q)) {
+			if (n == res[0].length) res[0] = Arrays.copyOf(res[0], 2 * n);
+			res[0][n++] = k;
+			if (n == max) return n;
+		    }
+		}
+	    } else {
+		for (int k = f + count[node] - 1; k >= f; k--)
+		    stack[top++] = k;
+	    }
+	}
+	return n;
+    }
+
+    private double[] bounds(Box q) {
+	if (size > 0 && q.dim() != dim) throw new IllegalArgumentException("Bad box dimension");
+	double[] b = new double[stride];
+	q.getBounds(b, 0);
+	return b;
+    }
+
+    private boolean intersects(double[] b, int off, double[] q) {
+	for (int d = 0; d < dim; d++) {
+	    if (b[off + 2 * d] > q[2 * d + 1] || q[2 * d] > b[off + 2 * d + 1]) return false;
+	}
+	return true;
+    }
+
+    /**
+     * Square of the distance from p to the box at offset "off" in b.
+     */
+    private double dist2(double[] b, int off, double[] p) {
+	double s = 0;
+	for (int d = 0; d < dim; d++) {
+	    double e = Math.max(0, Math.max(b[off + 2 * d] - p[d], p[d] - b[off + 2 * d + 1]));
+	    s += e * e;
+	}
+	return s;
+    }
+
+    /**
+     * Store in the kth entry of h the hull of the "n" entries
+     * of b from "from".
+     */
+    private void hull(double[] b, int from, int n, double[] h, int k) {
+	for (int d = 0; d < dim; d++) {
+	    double lb = Double.POSITIVE_INFINITY;
+	    double ub = Double.NEGATIVE_INFINITY;
+	    for (int i = from; i < from + n; i++) {
+		lb = Math.min(lb, b[i * stride + 2 * d]);
+		ub = Math.max(ub, b[i * stride + 2 * d + 1]);
+	    }
+	    h[k * stride + 2 * d] = lb;
+	    h[k * stride + 2 * d + 1] = ub;
+	}
+    }
+
+    /**
+     * Order of the n entries of b given by the STR algorithm.
+     */
+    private Integer[] strOrder(double[] b, int n) {
+	Integer[] order = new Integer[n];
+	for (int i = 0; i < n; i++) order[i] = i;
+	str(b, order, 0, n, 0);
+	return order;
+    }
+
+    /**
+     * Sort order[from..to-1] by the center of the component d, cut it
+     * into slabs and sort each slab by the next components.
+     */
+    private void str(final double[] b, Integer[] order, int from, int to, final int d) {
+	Arrays.sort(order, from, to, new Comparator<Integer>() {
+	    public int compare(Integer i, Integer j) {
+		return Double.compare(b[i * stride + 2 * d] + b[i * stride + 2 * d + 1],
+				      b[j * stride + 2 * d] + b[j * stride + 2 * d + 1]);
+	    }
+	});
+	int n = to - from;
+	if (d == dim - 1 || n <= NODE_SIZE) return;
+
+	int pages = (n + NODE_SIZE - 1) / NODE_SIZE;
+	int slabs = (int) Math.ceil(Math.pow(pages, 1.0 / (dim - d)));
+	int slabSize = NODE_SIZE * ((pages + slabs - 1) / slabs);
+	for (int s = from; s < to; s += slabSize)
+	    str(b, order, s, Math.min(to, s + slabSize), d + 1);
+    }
+
+    /**
+     * Return the entries of b in the given order; the arrays of "links"
+     * (one int per entry) are replaced by their reordered copies.
+     */
+    private double[] reorder(double[] b, Integer[] order, int[][] links) {
+	double[] nb = new double[b.length];
+	int[][] nl = new int[links.length][order.length];
+	for (int k = 0; k < order.length; k++) {
+	    System.arraycopy(b, order[k] * stride, nb, k * stride, stride);
+	    for (int l = 0; l < links.length; l++)
+		nl[l][k] = links[l][order[k]];
+	}
+	for (int l = 0; l < links.length; l++)
+	    links[l] = nl[l];
+	return nb;
+    }
+}
@@ -0,0 +1,87 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue of boxes from several writers to a single reader,
+ * without locks.
+ *
+ * Boxes are stored as bounds in a circular array of slots, reused
+ * once the reader has taken them, so the memory does not depend on
+ * the number of boxes going through the queue. Each slot has a
+ * sequence number telling whether it is free for the writer of a
+ * given index or holds the box of the reader's index (the bounded
+ * queue of D. Vyukov): a writer reserves an index with a
+ * compare-and-set on the tail, copies its box and then publishes it
+ * by its sequence number.
+ */
+class SolutionQueue {
+
+    /* status of a box taken from the queue */
+    static final int EMPTY = 0;
+    static final int POSSIBLE = 1;
+    static final int CERTIFIED = 2;
+
+    private final int mask;            // capacity - 1 (a power of 2)
+    private final int boundsStride;
+    private final double[] bounds;
+    private final boolean[] certified;
+    private final AtomicLongArray sequence;
+
+    private final AtomicLong tail = new AtomicLong(); // next index to write
+    private long head = 0;                            // next index to read (reader only)
+
+    SolutionQueue(int dim, int capacity) {
+	int c = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+	this.mask = c - 1;
+	this.boundsStride = 2 * dim;
+	this.bounds = new double[c * boundsStride];
+	this.certified = new boolean[c];
+	this.sequence = new AtomicLongArray(c);
+	for (int i = 0; i < c; i++) sequence.set(i, i);
+    }
+
+    /**
+     * Append a box (bounds b, and whether it is a certified solution).
+     *
+     * @return false if the queue is full.
+     */
+    boolean offer(double[] b, boolean cert) {
+	long t = tail.get();
+	while (true) {
+	    int k = (int) t & mask;
+	    long s = sequence.get(k);
+	    if (s == t) {
+		if (tail.compareAndSet(t, t + 1)) {
+		    System.arraycopy(b, 0, bounds, k * boundsStride, boundsStride);
+		    certified[k] = cert;
+		    sequence.set(k, t + 1);
+		    return true;
+		}
+		t = tail.get();
+	    } else if (s < t) {
+		return false; // not read yet
+	    } else {
+		t = tail.get(); // taken by another writer
+	    }
+	}
+    }
+
+    /**
+     * Take the oldest box and copy its bounds into b
+     * (reader only).
+     *
+     * @return EMPTY if there is no box to read, otherwise
+     * CERTIFIED or POSSIBLE.
+     */
+    int poll(double[] b) {
+	int k = (int) head & mask;
+	if (sequence.get(k) != head + 1) return EMPTY;
+	System.arraycopy(bounds, k * boundsStride, b, 0, boundsStride);
+	boolean cert = certified[k];
+	sequence.set(k, head + mask + 1);
+	head++;
+	return cert ? CERTIFIED : POSSIBLE;
+    }
+}
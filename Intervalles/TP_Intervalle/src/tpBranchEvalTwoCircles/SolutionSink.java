@@ -0,0 +1,33 @@
+package tpBranchEvalTwoCircles;
+
+import util.Box;
+
+/**
+ * Receives the solutions of a solver as they are found.
+ *
+ * The solver gives the ownership of each box to the sink (it does
+ * not modify it afterwards). accept() is never called by two threads
+ * at once: ParallelBranchEval synchronizes on the sink and
+ * WorkStealingBranchEval calls it from the thread running solve().
+ * The solvers call accept(x,certified).
+ */
+public interface SolutionSink {
+
+    /**
+     * Receive a solution.
+     *
+     * @return false to stop the search
+     */
+    boolean accept(Box x);
+
+    /**
+     * Receive a solution, "certified" being true if x is proven
+     * to contain a unique solution (see Contractor.contractAndCertify).
+     * By default, the flag is ignored.
+     *
+     * @return false to stop the search
+     */
+    default boolean accept(Box x, boolean certified) {
+	return accept(x);
+    }
+}
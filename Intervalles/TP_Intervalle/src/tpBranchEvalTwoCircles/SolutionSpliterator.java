@@ -0,0 +1,130 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import util.*;
+
+/**
+ * Lazy depth-first search of a BranchEval: each tryAdvance() explores
+ * the boxes of the stack only until the next solution is found.
+ *
+ * The solutions are given in the same order as BranchEval.solve.
+ * trySplit() gives all the boxes of the stack but the bottom one to
+ * the new spliterator (they come first in the order) and keeps the
+ * bottom one, the shallowest and largest subtree.
+ */
+class SolutionSpliterator implements Spliterator<Box> {
+
+    private final BranchEval solver;
+
+    private final double eps;
+
+    private final ArrayDeque<Box> stack;  // top = first element
+
+    private final ArrayDeque<Integer> vars; // component bisected to get each box of the stack
+
+    private long count = 0;               // number of branchings
+
+    private Box found = null;             // solution found by trySplit, not yet given
+
+    SolutionSpliterator(BranchEval solver, Box x0, double eps) {
+	this(solver, eps, new ArrayDeque<Box>(), new ArrayDeque<Integer>());
+	stack.push(x0.copy()); // x0 is left unchanged by the contractors
+	vars.push(-1);
+    }
+
+    private SolutionSpliterator(BranchEval solver, double eps, ArrayDeque<Box> stack, ArrayDeque<Integer> vars) {
+	this.solver = solver;
+	this.eps = eps;
+	this.stack = stack;
+	this.vars = vars;
+    }
+
+    public boolean tryAdvance(Consumer<? super Box> action) {
+	if (found != null) {
+	    Box x = found;
+	    found = null;
+	    action.accept(x);
+	    return true;
+	}
+	while (!stack.isEmpty()) {
+	    Box x = stack.pop();
+	    int last = vars.pop();
+	    count++;
+
+	    int status = solver.check(x, null);
+	    if (status == BranchEval.DISCARDED) continue;
+
+	    if (status == BranchEval.CERTIFIED || x.tryMaxDiam() < eps || !bisect(x, last)) {
+		action.accept(x);
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Bisect x and push the two halves.
+     *
+     * @return false if x cannot be split (nothing is pushed)
+     */
+    private boolean bisect(Box x, int last) {
+	int var = solver.bisector.variable(x, last);
+	Box upper = solver.split(x, var);
+	if (upper == null) return false;
+	stack.push(x);
+	vars.push(var);
+	stack.push(upper);
+	vars.push(var);
+	return true;
+    }
+
+    public Spliterator<Box> trySplit() {
+	// make sure the stack has two boxes to share
+	while (stack.size() == 1) {
+	    Box x = stack.peek();
+	    if (x.tryMaxDiam() < eps) return null;
+	    stack.pop();
+	    int last = vars.pop();
+	    count++;
+	    int status = solver.check(x, null);
+	    if (status == BranchEval.DISCARDED) return null;
+	    if (status == BranchEval.CERTIFIED || x.tryMaxDiam() < eps || !bisect(x, last)) {
+		// solution after contraction: left to tryAdvance (as it is:
+		// a certified box may not pass a second check)
+		found = x;
+		return null;
+	    }
+	}
+	if (stack.size() < 2) return null;
+
+	Box bottom = stack.removeLast();
+	int bottomVar = vars.removeLast();
+	ArrayDeque<Box> prefix = new ArrayDeque<Box>(stack);
+	ArrayDeque<Integer> prefixVars = new ArrayDeque<Integer>(vars);
+	stack.clear();
+	vars.clear();
+	stack.push(bottom);
+	vars.push(bottomVar);
+	return new SolutionSpliterator(solver, eps, prefix, prefixVars);
+    }
+
+    public long estimateSize() {
+	if (stack.isEmpty()) return found == null ? 0 : 1;
+	return Long.MAX_VALUE;
+    }
+
+    public int characteristics() {
+	return ORDERED | NONNULL;
+    }
+
+    /**
+     * Return the number of branchings performed so far by this
+     * spliterator (not by the ones split from it).
+     */
+    long getBranchings() {
+	return count;
+    }
+}
@@ -0,0 +1,40 @@
+package tpBranchEvalTwoCircles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event: a whole search (its duration is the solving
+ * time).
+ */
+@Name("tpBranchEvalTwoCircles.Solve")
+@Label("Solve")
+@Category("Branch & Evaluate")
+@Description("Search of the solutions of a problem")
+@StackTrace(false)
+class SolveEvent extends jdk.jfr.Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Dimension")
+    int dimension;
+
+    @Label("Constraints")
+    int constraints;
+
+    @Label("Contractors")
+    int contractors;
+
+    @Label("Precision")
+    double eps;
+
+    @Label("Branchings")
+    long branchings;
+
+    @Label("Solutions")
+    long solutions;
+}
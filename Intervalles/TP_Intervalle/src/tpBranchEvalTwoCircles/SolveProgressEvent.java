@@ -0,0 +1,52 @@
+package tpBranchEvalTwoCircles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event: periodic snapshot of each running search
+ * (see SearchProgress).
+ */
+@Name("tpBranchEvalTwoCircles.SolveProgress")
+@Label("Solve Progress")
+@Category("Branch & Evaluate")
+@Description("Snapshot of a running search")
+@Period("1 s")
+@StackTrace(false)
+class SolveProgressEvent extends jdk.jfr.Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Dimension")
+    int dimension;
+
+    @Label("Branchings")
+    long branchings;
+
+    @Label("Solutions")
+    long solutions;
+
+    @Label("Frontier")
+    @Description("Boxes waiting to be processed (-1 if unknown)")
+    long frontier;
+
+    @Label("Explored")
+    @Description("Fraction of the initial box explored")
+    @Percentage
+    double explored;
+
+    @Label("Branchings per Second")
+    @Description("Since the previous snapshot")
+    double rate;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
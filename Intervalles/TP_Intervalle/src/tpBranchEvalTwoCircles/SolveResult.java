@@ -0,0 +1,49 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.List;
+
+import util.Box;
+
+/**
+ * Outcome of the resolution of a Problem.
+ */
+public class SolveResult {
+
+    private final List<Box> solutions;
+
+    private final long branchings;
+
+    private final long nanos;
+
+    SolveResult(List<Box> _solutions, long _branchings, long _nanos) {
+	this.solutions = _solutions;
+	this.branchings = _branchings;
+	this.nanos = _nanos;
+    }
+
+    /**
+     * Return the solution boxes.
+     */
+    public List<Box> getSolutions() {
+	return solutions;
+    }
+
+    /**
+     * Return the number of branchings.
+     */
+    public long getBranchings() {
+	return branchings;
+    }
+
+    /**
+     * Return the solving time in nanoseconds.
+     */
+    public long getNanos() {
+	return nanos;
+    }
+
+    public String toString() {
+	return solutions.size() + " solutions, " + branchings + " branchings, "
+	    + (nanos / 1000) + " us";
+    }
+}
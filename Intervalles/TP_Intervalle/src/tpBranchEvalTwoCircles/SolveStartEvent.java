@@ -0,0 +1,34 @@
+package tpBranchEvalTwoCircles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event: beginning of a search (the SolveEvent is
+ * emitted only at its end).
+ */
+@Name("tpBranchEvalTwoCircles.SolveStart")
+@Label("Solve Start")
+@Category("Branch & Evaluate")
+@Description("Beginning of a search")
+@StackTrace(false)
+class SolveStartEvent extends jdk.jfr.Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Dimension")
+    int dimension;
+
+    @Label("Constraints")
+    int constraints;
+
+    @Label("Contractors")
+    int contractors;
+
+    @Label("Precision")
+    double eps;
+}
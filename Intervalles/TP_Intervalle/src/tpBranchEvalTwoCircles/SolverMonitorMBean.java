@@ -0,0 +1,52 @@
+package tpBranchEvalTwoCircles;
+
+/**
+ * Management interface of a running search, registered in the platform
+ * MBean server (domain tpBranchEvalTwoCircles, type Solver) while the
+ * search runs, if the solver is monitored (see BranchEval.setMonitored).
+ *
+ * The counters are updated by the solver every SearchProgress.PERIOD
+ * boxes.
+ */
+public interface SolverMonitorMBean {
+
+    /**
+     * Return the class of the solver.
+     */
+    String getSolver();
+
+    int getDimension();
+
+    long getBranchings();
+
+    long getSolutions();
+
+    /**
+     * Return the number of boxes waiting (-1 if unknown).
+     */
+    long getFrontier();
+
+    /**
+     * Return the fraction of the initial box explored, in [0,1]: each
+     * half of a bisection counts for half of the region of its parent
+     * box, and a discarded box or a solution for its whole region
+     * (contractions included).
+     */
+    double getExploredFraction();
+
+    double getElapsedSeconds();
+
+    /**
+     * Return the remaining time, extrapolated from the explored
+     * fraction (NaN while nothing is explored).
+     */
+    double getEtaSeconds();
+
+    boolean isCancelled();
+
+    /**
+     * Stop the search: the solutions already found are kept, and the
+     * boxes not explored are given by SearchResult.getUnexplored().
+     */
+    void cancel();
+}
@@ -0,0 +1,153 @@
+package tpBranchEvalTwoCircles;
+
+import java.lang.reflect.Method;
+import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import util.*;
+
+/**
+ * In-process service solving many (small) problems concurrently.
+ *
+ * Each submitted problem is solved by a BranchEval on its own thread:
+ * a virtual thread when the JVM provides them (Java 21+), otherwise a
+ * thread of a fixed pool of daemon threads. At most "maxConcurrent"
+ * problems are solved at the same time and at most "queueCapacity"
+ * others are waiting: beyond, submit() blocks until a problem is solved
+ * (backpressure).
+ *
+ * The stacks of boxes of the solvers are recycled from one problem
+ * to the next, and so are the work arrays of the functions and
+ * contractors on virtual threads (see Workspaces): a platform thread of
+ * the pool keeps its own ones.
+ */
+public class SolverService {
+
+    private final ExecutorService executor;
+
+    private final Semaphore running;   // permits for the problems being solved
+
+    private final Semaphore admitted;  // permits for the problems submitted and not yet solved
+
+    private final ConcurrentLinkedQueue<Scratch> scratches = new ConcurrentLinkedQueue<Scratch>();
+
+    private final boolean virtual;
+
+    public SolverService(int maxConcurrent, int queueCapacity) {
+	if (maxConcurrent <= 0) throw new IllegalArgumentException("Concurrency must be positive");
+	if (queueCapacity < 0) throw new IllegalArgumentException("Queue capacity must be non-negative");
+	ExecutorService ex = newVirtualThreadExecutor();
+	this.virtual = (ex != null);
+	if (ex == null) ex = Executors.newFixedThreadPool(maxConcurrent, new ThreadFactory() {
+		int n = 0;
+		public synchronized Thread newThread(Runnable r) {
+		    Thread t = new Thread(r, "solver-service-" + (n++));
+		    t.setDaemon(true);
+		    return t;
+		}
+	    });
+	this.executor = ex;
+	this.running = new Semaphore(maxConcurrent);
+	this.admitted = new Semaphore(maxConcurrent + queueCapacity);
+    }
+
+    public SolverService() {
+	this(Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * Return true if the problems are solved on virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+	return virtual;
+    }
+
+    /**
+     * Submit a problem. Blocks while the service is saturated.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public CompletableFuture<SolveResult> submit(final Problem pb) throws InterruptedException {
+	admitted.acquire();
+	CompletableFuture<SolveResult> f;
+	try {
+	    f = CompletableFuture.supplyAsync(new Supplier<SolveResult>() {
+		    public SolveResult get() {
+			running.acquireUninterruptibly();
+			try {
+			    return solve(pb);
+			} finally {
+			    running.release();
+			}
+		    }
+		}, executor);
+	} catch (RuntimeException e) {
+	    admitted.release();
+	    throw e;
+	}
+	return f.whenComplete(new BiConsumer<SolveResult,Throwable>() {
+		public void accept(SolveResult r, Throwable t) {
+		    admitted.release();
+		}
+	    });
+    }
+
+    /**
+     * Solve a problem in the current thread (of the executor), with
+     * recycled buffers.
+     */
+    SolveResult solve(Problem pb) {
+	Scratch sc = scratches.poll();
+	if (sc == null) sc = new Scratch();
+	// a virtual thread runs a single problem, so it can take the work arrays of the previous ones
+	if (virtual) Workspaces.bind(sc.workspaces);
+	try {
+	    long start = System.nanoTime();
+	    BranchEval solver = new BranchEval(pb.ctrs, pb.ctcs);
+	    CollectingSink sols = new CollectingSink();
+	    long count = solver.explore(pb.x0, pb.eps, sc.stack, sols).getBranchings();
+	    return new SolveResult(sols.getSolutions(), count, System.nanoTime() - start);
+	} finally {
+	    if (virtual) Workspaces.bind(null);
+	    sc.stack.clear();
+	    scratches.offer(sc);
+	}
+    }
+
+    /**
+     * Stop accepting problems and wait for the ones submitted.
+     */
+    public void shutdown() throws InterruptedException {
+	executor.shutdown();
+	executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() if available (looked
+     * up reflectively so that the code still runs on Java 8).
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+	try {
+	    Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+	    return (ExecutorService) m.invoke(null);
+	} catch (Exception e) {
+	    return null;
+	}
+    }
+
+    /**
+     * Buffers of a solver.
+     */
+    static class Scratch {
+	final Stack<Box> stack = new Stack<Box>();
+	final Workspaces workspaces = new Workspaces();
+    }
+}
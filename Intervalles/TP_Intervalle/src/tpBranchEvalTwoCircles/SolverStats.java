@@ -0,0 +1,253 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a search, collected by the solvers when enabled
+ * (see BranchEval.setStats).
+ *
+ * Counters are plain fields updated by a single thread: the parallel
+ * solvers fill one SolverStats per worker and merge them at the end.
+ * The timings (System.nanoTime around the checks and the bisections)
+ * are optional, as they cost much more than the counters.
+ */
+public class SolverStats {
+
+    /* per constraint: number of evaluations (Constraint.violated) and of boxes discarded */
+    final long[] evaluations;
+    final long[] prunes;
+
+    /* per contractor: number of contractions and of boxes emptied */
+    final long[] contractions;
+    final long[] emptied;
+
+    long[] depths = new long[32];  // number of boxes processed at each depth
+
+    long branchings = 0;
+    long maxFrontier = 0;          // largest number of boxes waiting (see BranchEval.setStats)
+
+    /* boxes discarded */
+    long contracted = 0;           // emptied by a contractor
+    long violated = 0;             // violating a constraint
+
+    /* boxes not bisected (solutions) */
+    long certified = 0;            // certified by a contractor
+    long belowEps = 0;             // smaller than eps
+    long unsplittable = 0;         // too small for the floating-point numbers
+
+    final boolean timed;
+    long evalNanos = 0;            // contractions and evaluations
+    long bisectNanos = 0;          // choice of the variable and bisection
+
+    SolverStats(int nbCtrs, int nbCtcs, boolean timed) {
+	this.evaluations = new long[nbCtrs];
+	this.prunes = new long[nbCtrs];
+	this.contractions = new long[nbCtcs];
+	this.emptied = new long[nbCtcs];
+	this.timed = timed;
+    }
+
+    /**
+     * Record a box popped at the given depth, with "frontier" boxes
+     * (including it) waiting.
+     */
+    void box(int depth, long frontier) {
+	branchings++;
+	if (depth >= depths.length) depths = Arrays.copyOf(depths, Math.max(2 * depths.length, depth + 1));
+	depths[depth]++;
+	if (frontier > maxFrontier) maxFrontier = frontier;
+    }
+
+    /**
+     * Record a box not bisected: certified, smaller than eps
+     * (tooSmall) or not splittable.
+     */
+    void solution(boolean cert, boolean tooSmall) {
+	if (cert) certified++;
+	else if (tooSmall) belowEps++;
+	else unsplittable++;
+    }
+
+    /**
+     * Start time of a timed section (0 if not timed).
+     */
+    long tick() {
+	return timed ? System.nanoTime() : 0;
+    }
+
+    void evaluated(long t0) {
+	if (timed) evalNanos += System.nanoTime() - t0;
+    }
+
+    void bisected(long t0) {
+	if (timed) bisectNanos += System.nanoTime() - t0;
+    }
+
+    /**
+     * Add the counters of s to this one (the frontier is the
+     * largest of both).
+     */
+    void merge(SolverStats s) {
+	for (int i = 0; i < evaluations.length; i++) {
+	    evaluations[i] += s.evaluations[i];
+	    prunes[i] += s.prunes[i];
+	}
+	for (int i = 0; i < contractions.length; i++) {
+	    contractions[i] += s.contractions[i];
+	    emptied[i] += s.emptied[i];
+	}
+	if (s.depths.length > depths.length) depths = Arrays.copyOf(depths, s.depths.length);
+	for (int d = 0; d < s.depths.length; d++)
+	    depths[d] += s.depths[d];
+	branchings += s.branchings;
+	maxFrontier = Math.max(maxFrontier, s.maxFrontier);
+	contracted += s.contracted;
+	violated += s.violated;
+	certified += s.certified;
+	belowEps += s.belowEps;
+	unsplittable += s.unsplittable;
+	evalNanos += s.evalNanos;
+	bisectNanos += s.bisectNanos;
+    }
+
+    /**
+     * Return the number of boxes processed.
+     */
+    public long getBranchings() {
+	return branchings;
+    }
+
+    /**
+     * Return the number of evaluations of the ith constraint.
+     */
+    public long getEvaluations(int i) {
+	return evaluations[i];
+    }
+
+    /**
+     * Return the number of boxes discarded by the ith constraint.
+     */
+    public long getPrunes(int i) {
+	return prunes[i];
+    }
+
+    /**
+     * Return the number of calls to the ith contractor.
+     */
+    public long getContractions(int i) {
+	return contractions[i];
+    }
+
+    /**
+     * Return the number of boxes emptied by the ith contractor.
+     */
+    public long getEmptied(int i) {
+	return emptied[i];
+    }
+
+    /**
+     * Return the number of boxes processed at depth d
+     * (the initial box is at depth 0).
+     */
+    public long getDepthCount(int d) {
+	return d < depths.length ? depths[d] : 0;
+    }
+
+    /**
+     * Return the largest depth reached (-1 if no box was processed).
+     */
+    public int getMaxDepth() {
+	int d = depths.length - 1;
+	while (d >= 0 && depths[d] == 0) d--;
+	return d;
+    }
+
+    /**
+     * Return the largest number of boxes waiting to be processed.
+     */
+    public long getMaxFrontier() {
+	return maxFrontier;
+    }
+
+    /**
+     * Return the number of boxes discarded by a contractor.
+     */
+    public long getContracted() {
+	return contracted;
+    }
+
+    /**
+     * Return the number of boxes discarded by a violated constraint.
+     */
+    public long getViolated() {
+	return violated;
+    }
+
+    /**
+     * Return the number of boxes certified by a contractor.
+     */
+    public long getCertified() {
+	return certified;
+    }
+
+    /**
+     * Return the number of boxes not bisected as smaller than eps.
+     */
+    public long getBelowEps() {
+	return belowEps;
+    }
+
+    /**
+     * Return the number of boxes that could not be bisected.
+     */
+    public long getUnsplittable() {
+	return unsplittable;
+    }
+
+    /**
+     * Return true if the timings were measured.
+     */
+    public boolean isTimed() {
+	return timed;
+    }
+
+    /**
+     * Return the time spent in contractions and evaluations (ns),
+     * summed over the workers.
+     */
+    public long getEvalNanos() {
+	return evalNanos;
+    }
+
+    /**
+     * Return the time spent in bisections (ns), summed over the workers.
+     */
+    public long getBisectNanos() {
+	return bisectNanos;
+    }
+
+    public String toString() {
+	StringBuilder sb = new StringBuilder();
+	sb.append("branchings: ").append(branchings)
+	    .append(", max depth: ").append(getMaxDepth())
+	    .append(", max frontier: ").append(maxFrontier).append('\n');
+	sb.append("discarded: ").append(contracted).append(" contracted, ")
+	    .append(violated).append(" violated\n");
+	sb.append("solutions: ").append(certified).append(" certified, ")
+	    .append(belowEps).append(" below eps, ")
+	    .append(unsplittable).append(" unsplittable\n");
+	for (int i = 0; i < contractions.length; i++)
+	    sb.append("contractor ").append(i).append(": ").append(contractions[i])
+		.append(" calls, ").append(emptied[i]).append(" emptied\n");
+	for (int i = 0; i < evaluations.length; i++)
+	    sb.append("constraint ").append(i).append(": ").append(evaluations[i])
+		.append(" evaluations, ").append(prunes[i]).append(" prunes\n");
+	sb.append("depths:");
+	for (int d = 0; d <= getMaxDepth(); d++)
+	    sb.append(' ').append(depths[d]);
+	if (timed)
+	    sb.append("\ntime: ").append(evalNanos / 1000).append(" us evaluating, ")
+		.append(bisectNanos / 1000).append(" us bisecting");
+	return sb.toString();
+    }
+}
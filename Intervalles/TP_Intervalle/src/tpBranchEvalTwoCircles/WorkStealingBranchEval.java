@@ -0,0 +1,402 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import util.*;
+
+/**
+ * Multi-threaded branch & evaluate with work stealing.
+ *
+ * Each worker owns a deque of boxes stored as primitive bounds
+ * (BoxDeque) and explores its boxes depth first, exactly like
+ * BranchEval. An idle worker steals the shallowest box of another
+ * worker, and parks after a few failed attempts until a box is pushed.
+ * Solutions go through a bounded lock-free SolutionQueue, from which the
+ * thread calling solve() sends them to the sink, so accept() is always
+ * called by this thread. A worker finding the queue full waits for this
+ * thread, so a slow sink slows the search down and the solutions
+ * stream out in constant memory.
+ *
+ * In deterministic mode, the path from the root (one bit per bisection)
+ * is recorded with each box and the solutions are sent to the sink at
+ * the end of the search, in the order of the sequential solver: they
+ * are all kept until then, in a SolutionBuffer.
+ *
+ * The constraints, contractors and bisector are shared by all the
+ * workers (the ones of the util package are thread-safe).
+ *
+ * When the search is cancelled, the workers stop after their current
+ * box and the boxes left in the deques are the unexplored ones. The
+ * solutions found are still sent to the sink; if it stops the search,
+ * the solutions it did not receive are left unexplored too.
+ */
+public class WorkStealingBranchEval extends BranchEval {
+
+    /* failed attempts to find a box before an idle worker parks */
+    private static final int SPINS = 64;
+
+    /* longest park of an idle worker (it is woken up by the pushes) */
+    private static final long PARK_NANOS = 1000000;
+
+    /* solutions found and not yet sent to the sink (non-deterministic mode) */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    int nbWorkers;
+
+    boolean deterministic;
+
+    public WorkStealingBranchEval(Constraint[] _ctrs, Contractor[] _ctcs, Bisector _bisector, int _nbWorkers, boolean _deterministic) {
+	super(_ctrs, _ctcs, _bisector);
+	if (_nbWorkers <= 0) throw new IllegalArgumentException("Number of workers must be positive");
+	this.nbWorkers = _nbWorkers;
+	this.deterministic = _deterministic;
+    }
+
+    public WorkStealingBranchEval(Constraint[] _ctrs, Contractor[] _ctcs, int _nbWorkers, boolean _deterministic) {
+	this(_ctrs, _ctcs, new LargestFirst(), _nbWorkers, _deterministic);
+    }
+
+    public WorkStealingBranchEval(Constraint[] _ctrs, Contractor[] _ctcs) {
+	this(_ctrs, _ctcs, Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    public SearchResult search(Box x0, double eps, SolutionSink sink) {
+	SearchProgress progress = SearchProgress.start(this, x0, eps);
+	try {
+	    return search(x0, eps, sink, progress);
+	} finally {
+	    progress.end();
+	}
+    }
+
+    /**
+     * Same as search(x0,eps,sink), reporting to "progress".
+     */
+    private SearchResult search(Box x0, double eps, SolutionSink sink, SearchProgress progress) {
+
+	int n = x0.dim();
+	Search search = new Search(n, eps, progress);
+	double[] b = new double[2 * n];
+	x0.getBounds(b, 0);
+	search.deques[0].push(b, new long[0], 0, -1);
+	search.pending.set(1);
+
+	for (int w = 0; w < nbWorkers; w++) {
+	    search.threads[w] = new Thread(search.new Worker(w), "branch-eval-worker-" + w);
+	}
+	for (int w = 0; w < nbWorkers; w++) {
+	    search.threads[w].start();
+	}
+
+	// Send the solutions as they are found (otherwise, at the end)
+	List<Box> left = new ArrayList<Box>(); // boxes not explored, or solutions not sent
+	boolean interrupted = false;
+	try {
+	    while (true) {
+		boolean done = search.running.get() == 0;
+		if (!deterministic) {
+		    int status;
+		    while ((status = search.queue.poll(b)) != SolutionQueue.EMPTY)
+			send(search, b, status == SolutionQueue.CERTIFIED, sink, left);
+		}
+		if (done) break;
+		if (Thread.interrupted()) {
+		    interrupted = true;
+		    search.failure = new InterruptedException();
+		    search.wakeAll();
+		}
+		LockSupport.park(search);
+	    }
+	} catch (RuntimeException | Error e) {
+	    // thrown by the sink: stop the workers (possibly waiting for the queue)
+	    search.failure = e;
+	    search.wakeAll();
+	    throw e;
+	}
+	if (interrupted) Thread.currentThread().interrupt();
+	if (search.failure instanceof RuntimeException) throw (RuntimeException) search.failure;
+	if (search.failure != null) throw new IllegalStateException(search.failure);
+
+	if (deterministic) {
+	    // Send the solutions in the order of their paths
+	    final SolutionBuffer sorted = search.found;
+	    Integer[] order = new Integer[sorted.size()];
+	    for (int i = 0; i < order.length; i++) order[i] = i;
+	    Arrays.sort(order, new Comparator<Integer>() {
+		public int compare(Integer i, Integer j) {
+		    return sorted.comparePaths(i, j);
+		}
+	    });
+	    for (int i = 0; i < order.length; i++) {
+		sorted.getBounds(order[i], b);
+		send(search, b, sorted.isCertified(order[i]), sink, left);
+	    }
+	}
+
+	long count = 0; // number of branchings
+	for (int w = 0; w < nbWorkers; w++)
+	    count += search.counts[w];
+	SolverStats st = newStats();
+	if (st != null)
+	    for (int w = 0; w < nbWorkers; w++)
+		st.merge(search.stats[w]);
+
+	// boxes left in the deques (cancelled or stopped by the sink)
+	long[][] path = { new long[0] };
+	int[] var = new int[1];
+	for (int w = 0; w < nbWorkers; w++) {
+	    while (search.deques[w].pop(b, path, var) >= 0) {
+		Box y = new Box(n);
+		y.setBounds(b, 0);
+		left.add(y);
+	    }
+	}
+	return new SearchResult(count, progress.isCancelled(), st, left);
+    }
+
+    /**
+     * Send a solution (bounds b) to the sink, or add it to "left" if
+     * the sink already stopped the search.
+     */
+    private void send(Search search, double[] b, boolean cert, SolutionSink sink, List<Box> left) {
+	Box x = new Box(search.dim);
+	x.setBounds(b, 0);
+	if (search.refused) {
+	    left.add(x);
+	    return;
+	}
+	boolean more = sink.accept(x, cert);
+	search.progress.found();
+	if (!more) {
+	    search.refused = true;
+	    search.stopped = true;
+	    search.wakeAll();
+	}
+    }
+
+    /**
+     * State of one search (shared by the workers).
+     */
+    class Search {
+	final int dim;
+	final double eps;
+	final BoxDeque[] deques;
+	final Thread[] threads;
+	final Thread consumer = Thread.currentThread();   // sends the solutions
+	final long[] counts;
+	final SolverStats[] stats;                   // statistics of each worker (or null)
+	final SolutionQueue queue;                   // solutions to send (or null in deterministic mode)
+	final SolutionBuffer found;                  // all the solutions (or null)
+	final AtomicLong pending = new AtomicLong(); // boxes pushed and not yet processed
+	final AtomicInteger running;                 // workers not terminated
+	final AtomicInteger sleeping = new AtomicInteger();
+	final AtomicIntegerArray parked;             // 1 if the worker is parked (or about to)
+	final SearchProgress progress;
+	volatile Throwable failure;
+	volatile boolean stopped = false;            // set when the sink refuses a solution, or cancelled
+	boolean refused = false;                     // the sink refused a solution (consumer only)
+
+	Search(int dim, double eps, SearchProgress progress) {
+	    this.dim = dim;
+	    this.eps = eps;
+	    this.deques = new BoxDeque[nbWorkers];
+	    for (int w = 0; w < nbWorkers; w++)
+		deques[w] = new BoxDeque(dim, deterministic, 64);
+	    this.threads = new Thread[nbWorkers];
+	    this.counts = new long[nbWorkers];
+	    this.stats = new SolverStats[nbWorkers];
+	    for (int w = 0; w < nbWorkers; w++)
+		stats[w] = newStats();
+	    this.queue = deterministic ? null : new SolutionQueue(dim, QUEUE_CAPACITY);
+	    this.found = deterministic ? new SolutionBuffer(dim) : null;
+	    this.running = new AtomicInteger(nbWorkers);
+	    this.parked = new AtomicIntegerArray(nbWorkers);
+	    this.progress = progress;
+	}
+
+	/**
+	 * Unpark a parked worker, if any.
+	 */
+	void wakeOne() {
+	    for (int w = 0; w < nbWorkers; w++) {
+		if (parked.get(w) == 1 && parked.compareAndSet(w, 1, 0)) {
+		    LockSupport.unpark(threads[w]);
+		    return;
+		}
+	    }
+	}
+
+	/**
+	 * Unpark all the parked workers (the search is over).
+	 */
+	void wakeAll() {
+	    for (int w = 0; w < nbWorkers; w++) {
+		if (parked.getAndSet(w, 0) == 1) LockSupport.unpark(threads[w]);
+	    }
+	}
+
+	class Worker implements Runnable {
+	    final int id;
+
+	    Worker(int id) {
+		this.id = id;
+	    }
+
+	    public void run() {
+		try {
+		    explore();
+		} catch (Throwable t) {
+		    failure = t;
+		    wakeAll();
+		} finally {
+		    running.decrementAndGet();
+		    LockSupport.unpark(consumer);
+		}
+	    }
+
+	    private void explore() {
+		BoxDeque own = deques[id];
+		double[] b = new double[2 * dim];
+		long[][] path = { new long[deterministic ? 1 : 0] };
+		int[] var = new int[1];
+		Box x = new Box(dim);
+		Box upper = new Box(dim);
+		Random random = new Random(id);
+		SolverStats st = stats[id];
+		long count = 0;
+		long reported = 0;    // branchings reported to "progress"
+		double explored = 0;  // fraction of x0 explored since the last report
+		int attempts = 0;     // consecutive attempts to find a box
+
+		while (failure == null && !stopped) {
+		    if (count - reported == SearchProgress.PERIOD) {
+			if (progress.advance(count - reported, explored, pending.get())) {
+			    stopped = true;
+			    wakeAll();
+			}
+			reported = count;
+			explored = 0;
+			continue;
+		    }
+		    int depth = own.pop(b, path, var);
+		    if (depth < 0) depth = steal(b, path, var, random);
+		    if (depth < 0) {
+			if (pending.get() == 0) break;
+			idle(++attempts);
+			continue;
+		    }
+		    attempts = 0;
+
+		    count++;
+		    // the frontier is the number of boxes waiting in all the deques
+		    if (st != null) st.box(depth, pending.get());
+		    x.setBounds(b, 0);
+
+		    int status = (count & (BOX_SAMPLING - 1)) == 0 ? sampledCheck(x, st, pending.get())
+			: check(x, st);
+		    if (status != DISCARDED) {
+			int v = -1;
+			boolean split = false;
+			if (status != CERTIFIED && !(x.tryMaxDiam() < eps)) {
+			    long t0 = st == null ? 0 : st.tick();
+			    v = bisector.variable(x, var[0]);
+			    split = bisector.tryBisect(x, v, x, upper) == Interval.BISECTED;
+			    if (st != null) st.bisected(t0);
+			}
+			if (!split) {
+			    if (st != null) st.solution(status == CERTIFIED, v < 0);
+			    explored += Math.scalb(1.0, -depth);
+			    x.getBounds(b, 0);
+			    if (deterministic) found.add(b, path[0], depth, status == CERTIFIED);
+			    else put(b, status == CERTIFIED);
+			} else {
+			    pending.addAndGet(2);
+			    // same order as BranchEval: the upper half is explored first
+			    x.getBounds(b, 0);
+			    setBit(path, depth, true);
+			    own.push(b, path[0], depth + 1, v);
+			    upper.getBounds(b, 0);
+			    setBit(path, depth, false);
+			    own.push(b, path[0], depth + 1, v);
+			    if (sleeping.get() > 0) wakeOne();
+			}
+		    } else {
+			explored += Math.scalb(1.0, -depth);
+		    }
+		    if (pending.decrementAndGet() == 0) wakeAll();
+		}
+		progress.advance(count - reported, explored, pending.get());
+		counts[id] = count;
+	    }
+
+	    /**
+	     * Append a solution to the queue, waiting for the consumer
+	     * while it is full. The solution is dropped if the search
+	     * failed (it will not be sent anyway).
+	     */
+	    private void put(double[] b, boolean cert) {
+		while (!queue.offer(b, cert)) {
+		    if (failure != null) return;
+		    LockSupport.unpark(consumer);
+		    LockSupport.parkNanos(Search.this, PARK_NANOS);
+		}
+		LockSupport.unpark(consumer);
+	    }
+
+	    /**
+	     * Steal the shallowest box of another worker (victims are
+	     * visited from a random one).
+	     *
+	     * @return the depth of the box, or -1 if none was found
+	     */
+	    private int steal(double[] b, long[][] path, int[] var, Random random) {
+		int start = random.nextInt(nbWorkers);
+		for (int k = 0; k < nbWorkers; k++) {
+		    int v = (start + k) % nbWorkers;
+		    if (v == id) continue;
+		    int depth = deques[v].steal(b, path, var);
+		    if (depth >= 0) return depth;
+		}
+		return -1;
+	    }
+
+	    /**
+	     * Wait before the next attempt to find a box: spin for the
+	     * first ones, then park until a box is pushed (or PARK_NANOS).
+	     */
+	    private void idle(int attempts) {
+		if (attempts <= SPINS) {
+		    Thread.onSpinWait();
+		    return;
+		}
+		sleeping.incrementAndGet();
+		parked.set(id, 1);
+		if (pending.get() != 0 && !stopped && failure == null)
+		    LockSupport.parkNanos(Search.this, PARK_NANOS);
+		parked.set(id, 0);
+		sleeping.decrementAndGet();
+	    }
+
+	    /**
+	     * Set the bit "depth" of the path (most significant bit first),
+	     * with a longer array if needed.
+	     */
+	    private void setBit(long[][] path, int depth, boolean one) {
+		if (!deterministic) return;
+		long[] p = path[0];
+		if (depth >> 6 >= p.length) path[0] = p = Arrays.copyOf(p, Math.max(2 * p.length, (depth >> 6) + 1));
+		long mask = 1L << (63 - (depth & 63));
+		if (one) p[depth >> 6] |= mask;
+		else p[depth >> 6] &= ~mask;
+	    }
+	}
+    }
+}
@@ -0,0 +1,43 @@
+package util;
+
+/**
+ * Bisection strategy: choice of the component to bisect in a
+ * box and of the bisection point.
+ *
+ * The solvers remember, with each box, the component bisected
+ * to obtain it (see variable(Box,int)), so that a strategy can
+ * cycle on the components without storing anything.
+ */
+public interface Bisector {
+
+	/**
+	 * Return the component to bisect in x (a box with a non-degenerated
+	 * component).
+	 *
+	 * @param last the component bisected to obtain x, or -1 for the initial box.
+	 */
+	int variable(Box x, int last);
+
+	/**
+	 * Return the bisection point of the component "var" of x
+	 * (strictly inside), or NaN if there is none.
+	 */
+	double point(Box x, int var);
+
+	/**
+	 * Bisect x along "var" at point(x,var).
+	 */
+	default Pair<Box,Box> bisect(Box x, int var) {
+		return x.bisect(var, point(x, var));
+	}
+
+	/**
+	 * Bisect x along "var" at point(x,var) into "lower" and "upper",
+	 * without exception (cf. Box.tryBisect).
+	 *
+	 * @return Interval.BISECTED, or the reason why x cannot be split.
+	 */
+	default int tryBisect(Box x, int var, Box lower, Box upper) {
+		return x.tryBisect(var, point(x, var), lower, upper);
+	}
+}
@@ -1,7 +1,5 @@
 package util;
 
-import java.util.Vector;
-
 
 /**
  * Last update: September 06, 2011
@@ -12,20 +10,25 @@ import java.util.Vector;
  */
 public class Box {	
 
-	/* The components.
+	/* The bounds of the components, interleaved:
+	 *   bounds[2*i] = lower bound of the ith component
+	 *   bounds[2*i+1] = upper bound of the ith component
+	 * An empty component is stored as [-oo,-oo] (same convention as Interval).
+	 * 
 	 * Must be *private* for at least 2 reasons:
 	 * - the underlying structure may change
 	 * - the box must be set to an box empty when a component is empty
 	 *   see, e.g. set(int, Interval). */
-	private Vector<Interval> comp;	
+	private double[] bounds;
 	
 	/** Create a box of dimension "dim" with 
 	 * all the components initialized to (a copy of) "x". */
 	public Box(int dim, Interval x) {
 		if (dim<=0) throw new InvalidBoxOp("Negative box dimension.");
-		comp = new Vector<Interval>(dim);
+		bounds = new double[2*dim];
 		for (int i=0; i<dim; i++) {
-			comp.add(x.copy());	
+			bounds[2*i]   = x.getLB();
+			bounds[2*i+1] = x.getUB();
 		}
 	}
 
@@ -39,9 +42,7 @@ public class Box {
 	 * 
 	 */
 	private Box(Box other) {
-		comp = new Vector<Interval>(other.dim());		
-		for (int i=0; i<other.dim(); i++)
-			comp.add(other.comp.get(i).copy());
+		bounds = other.bounds.clone();
 	}
 	
 	/**
@@ -58,7 +59,7 @@ public class Box {
 	/** 
 	 * Get a copy of "other". 
 	 */
-	private Box copy() {
+	public Box copy() {
 		return new Box(this);
 	}
 	
@@ -95,26 +96,28 @@ public class Box {
 	/**
 	 * Get the lower bound of the ith component
 	 */
-//	public double getLB(int i) {
-//		return comp.get(i).getLB();
-//	}
+	public double getLB(int i) {
+		return bounds[2*i];
+	}
 
 	/**
 	 * Get the upper bound of the ith component
 	 */
-//	public double getUB(int i) {
-//		return comp.get(i).getUB();
-//	}
+	public double getUB(int i) {
+		return bounds[2*i+1];
+	}
 	
 	/** 
-	 * Get a const reference of the ith component.
+	 * Get a copy of the ith component.
 	 * 
-	 * This reference is non assignable directly, you 
-	 * must use set(int, Interval) instead. We can
+	 * The returned interval is not linked to the box, you
+	 * must use set(int, Interval) to modify the box. We can
 	 * control when a box becomes empty in this way.
+	 * 
+	 * In loops, prefer getLB(int)/getUB(int) that do not allocate.
 	 */ 
 	public Interval get(int i) {
-		return comp.get(i);
+		return new Interval(bounds[2*i], bounds[2*i+1]);
 	}
 	
 	/** 
@@ -145,21 +148,27 @@ public class Box {
 	 * Assign the ith component to [lb,ub], unless the
 	 * box was empty in which case the ith component remains
 	 * the empty interval.
+	 * 
+	 * @throws InvalidIntervalOp if lb>ub (cf. Interval.set)
 	 */
-	private void set(int i, double lb, double ub) {
+	public void set(int i, double lb, double ub) {
+		if (lb>ub) throw new InvalidIntervalOp("Bounds in reverse order");
 		if (!isEmpty()) {		
-			comp.get(i).set(lb,ub);		
-			if (comp.get(i).isEmpty()) setToEmpty();
+			if (lb==Double.POSITIVE_INFINITY || ub==Double.NEGATIVE_INFINITY)
+				setToEmpty();
+			else {
+				bounds[2*i]   = lb;
+				bounds[2*i+1] = ub;
+			}
 		}
 	}
 	
 	/** 
 	 * Assign the ith component to x:
-	 * 1- The reference of the ith component does not change.
-	 * 2- The bounds are copies of the bounds of x, unless the
+	 * 1- The bounds are copies of the bounds of x, unless the
 	 *    box was empty in which case the ith component remains
 	 *    the empty interval.
-	 * 3- If x is the empty interval, the box becomes empty. 
+	 * 2- If x is the empty interval, the box becomes empty.
 	 */
 	public void set(int i, Interval x) {
 		set(i, x.getLB(), x.getUB());
@@ -181,11 +190,27 @@ public class Box {
 //		}
 //	}
 
+	/**
+	 * Copy the bounds of this box into dst[off], ..., dst[off+2*dim()-1]
+	 * (lower and upper bounds interleaved).
+	 */
+	public void getBounds(double[] dst, int off) {
+		System.arraycopy(bounds, 0, dst, off, bounds.length);
+	}
+
+	/**
+	 * Set the bounds of this box to src[off], ..., src[off+2*dim()-1],
+	 * as written by getBounds (no check is performed).
+	 */
+	public void setBounds(double[] src, int off) {
+		System.arraycopy(src, off, bounds, 0, bounds.length);
+	}
+
 	/** 
 	 * Return the dimension.
 	 * */
 	public int dim() {
-		return comp.size();
+		return bounds.length/2;
 	}
 	
 	/**
@@ -194,8 +219,9 @@ public class Box {
 	public Box mid() {
 		Box mBox=new Box(dim());
 		for (int i=0; i<dim(); i++) {
-			double m =  get(i).mid();
-			mBox.set(i, new Interval(m,m));
+			double m = Interval.mid(getLB(i), getUB(i));
+			mBox.bounds[2*i]   = m;
+			mBox.bounds[2*i+1] = m;
 		}
 		return mBox;
 	}
@@ -204,7 +230,7 @@ public class Box {
 	 * True iff this box is empty 
 	 * */
 	public boolean isEmpty() {
-		return get(0).isEmpty();
+		return bounds[0]==Double.NEGATIVE_INFINITY && bounds[1]==Double.NEGATIVE_INFINITY;
 	}
 
 	/** 
@@ -223,13 +249,7 @@ public class Box {
 	 * Set this box to the empty box 
 	 * */
 	public void setToEmpty() {
-		// warning: do not insert this test:
-		//	 if (isEmpty()) return;
-		// because we call setToEmpty() from set(...) and the first component
-		// may be empty in an intermediate state
-		
-		for (int i=0; i<dim(); i++) 
-			comp.get(i).setToEmpty(); 
+		java.util.Arrays.fill(bounds, Double.NEGATIVE_INFINITY);
 	}
 	
 	/** 
@@ -245,6 +265,42 @@ public class Box {
 //		return true;
 //	}
 //	
+
+	/**
+	 * Return the diameter of the ith component.
+	 * 
+	 * @throws InvalidIntervalOp (cf. Interval.diam)
+	 */
+	public double diam(int i) {
+		double lb=getLB(i);
+		double ub=getUB(i);
+		if (lb==Double.NEGATIVE_INFINITY || ub==Double.POSITIVE_INFINITY) {
+			if (isEmpty()) throw new InvalidIntervalOp("Diameter of an empty interval is undefined");
+			throw new InvalidIntervalOp("Cannot calculate diameter with infinite bounds");
+		}
+		return ub-lb;
+	}
+
+	/**
+	 * Same as diam(i), without exception: +oo if a bound is
+	 * infinite, NaN if the box is empty.
+	 */
+	public double tryDiam(int i) {
+		return bounds[2*i+1]-bounds[2*i];
+	}
+
+	/**
+	 * Same as maxDiam(), without exception: +oo if a component
+	 * is unbounded, NaN if the box is empty.
+	 */
+	public double tryMaxDiam() {
+		double d=0;
+		for (int i=0; i<bounds.length; i+=2) {
+			double di=bounds[i+1]-bounds[i];
+			d = di>d ? di : d;
+		}
+		return isEmpty()? Double.NaN : d;
+	}
 	
 	/** 
 	 * Return the index of the component with minimal/maximal diameter
@@ -256,10 +312,11 @@ public class Box {
     	double d=min? Double.POSITIVE_INFINITY : -1;
     	int selectedIndex=-1;
     	if (isEmpty()) throw new InvalidBoxOp("Diameter of an empty box is undefined");
-    	for (int i=0; i<comp.size(); i++) {
-    		if (min? get(i).diam()<d : get(i).diam()>d) { 
+    	for (int i=0; i<dim(); i++) {
+    		double di=diam(i);
+    		if (min? di<d : di>d) {
     			selectedIndex=i; 
-    			d=get(i).diam(); 
+    			d=di;
     		}
     	}
     	return selectedIndex;
@@ -271,7 +328,7 @@ public class Box {
 	 *  @throws InvalidBoxOp if the box is empty. 
 	 */ 
 	public double maxDiam() {
-		return get(extrDiamIndex(false)).diam();
+		return diam(extrDiamIndex(false));
 	}	
 
 	/** 
@@ -282,6 +339,25 @@ public class Box {
 //	public double minDiam() {
 //		return get(extrDiamIndex(true)).diam();
 //	}
+
+	/**
+	 * Intersects the ith component of this box with [lb,ub].
+	 * 
+	 * @return true iff the intersection is nonempty   
+	 */
+	public boolean setToInter(int i, double lb, double ub) {
+		if (isEmpty()) return false;
+		if (lb==Double.NEGATIVE_INFINITY && ub==Double.NEGATIVE_INFINITY) { setToEmpty(); return false; }
+		double _lb=Math.max(getLB(i), lb);
+		double _ub=Math.min(getUB(i), ub);
+		if (_lb>_ub || _lb==Double.POSITIVE_INFINITY || _ub==Double.NEGATIVE_INFINITY) {
+			setToEmpty();
+			return false;
+		}
+		bounds[2*i]   = _lb;
+		bounds[2*i+1] = _ub;
+		return true;
+	}
 	
 	/** 
 	 * Intersects the ith component of this box with another interval.
@@ -289,11 +365,7 @@ public class Box {
 	 * @return true iff the intersection is nonempty   
 	 */
 	public boolean setToInter(int i, Interval x) {
-		//if (x.isEmpty()) { setToEmpty(); return false; }
-		//if (isEmpty()) return false;
-		comp.get(i).setToInter(x);
-		if (comp.get(i).isEmpty()) { setToEmpty(); return false; }
-		return true;
+		return setToInter(i, x.getLB(), x.getUB());
 	}
 
 	/** 
@@ -385,19 +457,44 @@ public class Box {
 	 * 
 	 * @throws InvalidIntervalOp (cf. Interval.bisect) 
 	 */
-	private Pair<Box,Box> bisect(int var, double pt) {
+	public Pair<Box,Box> bisect(int var, double pt) {
+		double lb=getLB(var);
+		double ub=getUB(var);
 				
-		// split the variable
-		Interval i = get(var);
-		Pair<Interval,Interval> pi = i.bisect(pt); 
-		// copy the box
+		// same checks as Interval.bisect
+		if (isEmpty()) throw new InvalidIntervalOp("Cannot bisect an empty interval");
+		if (lb==ub) throw new InvalidIntervalOp("Cannot bisect a degenerated interval");
+		if (pt<=lb || pt>=ub)
+			throw new InvalidIntervalOp("Bisection point not strictly inside the interval");
+
+		// copy the box (one array copy per half) and split the variable
 		Box lowerHalf = copy();
-		lowerHalf.set(var, pi.fst);
+		lowerHalf.bounds[2*var+1] = pt;
 		Box upperHalf = copy();
-		upperHalf.set(var, pi.snd);
+		upperHalf.bounds[2*var] = pt;
 		
 		return new Pair<Box,Box>(lowerHalf,upperHalf);
 	}
+
+	/**
+	 * Bisect the box along "var" at point "pt" into "lower" and "upper"
+	 * (boxes of the same dimension, this box may be one of them),
+	 * without exception and without allocation.
+	 * 
+	 * @return Interval.BISECTED, or the reason why the component cannot
+	 * be split (cf. Interval.tryBisect), in which case lower and upper
+	 * are unchanged.
+	 */
+	public int tryBisect(int var, double pt, Box lower, Box upper) {
+		int status = isEmpty()? Interval.EMPTY_ITV : Interval.bisectStatus(getLB(var), getUB(var), pt);
+		if (status!=Interval.BISECTED) return status;
+
+		if (upper!=this) System.arraycopy(bounds, 0, upper.bounds, 0, bounds.length);
+		if (lower!=this) System.arraycopy(bounds, 0, lower.bounds, 0, bounds.length);
+		lower.bounds[2*var+1] = pt;
+		upper.bounds[2*var] = pt;
+		return Interval.BISECTED;
+	}
 	
 	/** 
 	 * Bisect the box along "var" (at midpoint) and return the two sub-boxes.
@@ -406,8 +503,8 @@ public class Box {
 	 * 
 	 * @throws InvalidIntervalOp (cf. Interval.bisect) 
 	 */
-	private Pair<Box,Box> bisect(int var) {
-		return bisect(var,get(var).mid());
+	public Pair<Box,Box> bisect(int var) {
+		return bisect(var,Interval.mid(getLB(var),getUB(var)));
 	}
 	
 	/** 
@@ -420,7 +517,7 @@ public class Box {
 		double sizeMax = Double.NEGATIVE_INFINITY;
 		int varMax = -1;
 		for (int var=0; var<dim(); var++) {
-			double sizeI = get(var).diam();
+			double sizeI = diam(var);
 			if (sizeI>sizeMax) {
 				sizeMax = sizeI;
 				varMax = var;
@@ -435,7 +532,7 @@ public class Box {
 	public String toString() {
 		String res = "(";
 		for (int i=0; i<dim(); i++) 
-			res += comp.get(i) + (i<dim()-1? " ; " : "");
+			res += get(i) + (i<dim()-1? " ; " : "");
 		return res+")";
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package util;
+
+/**
+ * A block of boxes of the same dimension, stored as a structure of arrays:
+ * the lower (resp. upper) bounds of the ith component of all the boxes are
+ * contiguous in lb(i) (resp. ub(i)).
+ *
+ * This layout allows to evaluate a function over all the boxes of the
+ * block with simple loops on primitive arrays (see Function.eval(BoxBlock,
+ * double[], double[])), that the JIT compiler can vectorize.
+ *
+ * An empty box is stored as [-oo,-oo] on every component (same convention
+ * as Box).
+ */
+public class BoxBlock {
+
+	private final double[][] lb;
+
+	private final double[][] ub;
+
+	private int size;
+
+	/**
+	 * Create an empty block of boxes of dimension "dim"
+	 * with room for "capacity" boxes.
+	 */
+	public BoxBlock(int dim, int capacity) {
+		if (dim<=0) throw new InvalidBoxOp("Negative box dimension.");
+		lb = new double[dim][capacity];
+		ub = new double[dim][capacity];
+		size = 0;
+	}
+
+	/**
+	 * Return the dimension of the boxes.
+	 */
+	public int dim() {
+		return lb.length;
+	}
+
+	/**
+	 * Return the number of boxes in the block.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the maximal number of boxes.
+	 */
+	public int capacity() {
+		return lb[0].length;
+	}
+
+	/**
+	 * Remove all the boxes.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Append a copy of the box x.
+	 *
+	 * @return the index of the box in the block
+	 */
+	public int add(Box x) {
+		if (x.dim()!=dim()) throw new InvalidBoxOp("Bad box dimension.");
+		if (size==capacity()) throw new InvalidBoxOp("Block is full.");
+		for (int i=0; i<lb.length; i++) {
+			lb[i][size] = x.getLB(i);
+			ub[i][size] = x.getUB(i);
+		}
+		return size++;
+	}
+
+	/**
+	 * Copy the kth box of the block into x.
+	 */
+	public void get(int k, Box x) {
+		if (k<0 || k>=size) throw new InvalidBoxOp("Bad box index.");
+		if (x.dim()!=dim()) throw new InvalidBoxOp("Bad box dimension.");
+		double[] b = new double[2*lb.length];
+		for (int i=0; i<lb.length; i++) {
+			b[2*i]   = lb[i][k];
+			b[2*i+1] = ub[i][k];
+		}
+		x.setBounds(b, 0);
+	}
+
+	/**
+	 * Return the array of the lower bounds of the ith component
+	 * (only the first size() entries are meaningful).
+	 */
+	public double[] lb(int i) {
+		return lb[i];
+	}
+
+	/**
+	 * Return the array of the upper bounds of the ith component
+	 * (only the first size() entries are meaningful).
+	 */
+	public double[] ub(int i) {
+		return ub[i];
+	}
+}
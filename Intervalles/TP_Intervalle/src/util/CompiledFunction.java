@@ -0,0 +1,88 @@
+package util;
+
+/**
+ * Base class of the functions generated at runtime by TapeCompiler.
+ *
+ * A subclass implements eval(Box, Interval) as straight-line code
+ * (one local variable per bound of each instruction of the tape)
+ * so that the JIT can inline it like a hand-written function.
+ *
+ * @see TapeCompiler
+ */
+public abstract class CompiledFunction extends Function {
+
+	/* The source expression */
+	Expr expr;
+
+	/* The same function evaluated on the tape, for the derivatives */
+	private volatile ExprFunction symbolic;
+
+	/* Result of intersects for the current thread */
+	private final ThreadLocal<Interval> result = new Workspaces.Local<Interval>() {
+		protected Interval create() {
+			return Interval.EMPTY();
+		}
+	};
+
+	protected CompiledFunction() {
+	}
+
+	public Interval eval(Box x) {
+		Interval res = Interval.EMPTY();
+		eval(x, res);
+		return res;
+	}
+
+	public abstract void eval(Box x, Interval res);
+
+	public boolean intersects(Box x, double lb, double ub) {
+		Interval res = result.get();
+		eval(x, res);
+		return !res.isEmpty() && res.getLB() <= ub && res.getUB() >= lb;
+	}
+
+	public boolean hasGradient() {
+		return expr!=null;
+	}
+
+	/**
+	 * Partial derivatives, computed on the tape of the source
+	 * expression (see ExprFunction.evalGradient).
+	 */
+	public void evalGradient(Box x, Interval[] grad) {
+		if (expr==null) super.evalGradient(x, grad);
+		symbolic().evalGradient(x, grad);
+	}
+
+	public boolean hasOutwardRounding() {
+		return expr!=null;
+	}
+
+	/**
+	 * Evaluation rounded outward, on the tape of the source
+	 * expression (see ExprFunction.evalOutward).
+	 */
+	public void evalOutward(Box x, Interval res) {
+		if (expr==null) super.evalOutward(x, res);
+		symbolic().evalOutward(x, res);
+	}
+
+	public void evalGradientOutward(Box x, Interval[] grad) {
+		if (expr==null) super.evalGradientOutward(x, grad);
+		symbolic().evalGradientOutward(x, grad);
+	}
+
+	/**
+	 * Return the source expression, evaluated on the tape
+	 * (or null if it is unknown).
+	 */
+	public ExprFunction symbolic() {
+		if (expr==null) return null;
+		if (symbolic==null) symbolic = new ExprFunction(expr);
+		return symbolic;
+	}
+
+	public String toString() {
+		return expr==null? super.toString() : expr.toString();
+	}
+}
@@ -6,4 +6,18 @@ public abstract class Constraint {
     public Constraint() {}
 
     public abstract boolean violated(Box box);
+
+    /**
+     * Set the kth bit of "mask" (bit k%64 of mask[k/64]) iff the kth box
+     * of the block does not violate the constraint, for k < xs.size().
+     * The other bits of the words covering the block are cleared.
+     */
+    public void notViolated(BoxBlock xs, long[] mask) {
+	Box x = new Box(xs.dim());
+	java.util.Arrays.fill(mask, 0, (xs.size() + 63) >>> 6, 0L);
+	for (int k = 0; k < xs.size(); k++) {
+	    xs.get(k, x);
+	    if (!violated(x)) mask[k >>> 6] |= 1L << k;
+	}
+    }
 }
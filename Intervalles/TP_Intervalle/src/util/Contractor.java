@@ -0,0 +1,26 @@
+
+package util;
+
+/**
+ * An operator that removes from a box some points that
+ * cannot be solutions (without removing any solution).
+ */
+public abstract class Contractor {
+
+    public Contractor() {}
+
+    /**
+     * Contract the box x. The box becomes empty if it
+     * is proven to contain no solution.
+     */
+    public abstract void contract(Box x);
+
+    /**
+     * Contract the box x and return true if x is proven to contain
+     * a unique solution. This default implementation only contracts.
+     */
+    public boolean contractAndCertify(Box x) {
+	contract(x);
+	return false;
+    }
+}
@@ -3,12 +3,49 @@ package util;
 
 public class Equation extends NumericConstraint {
 
+    /* Evaluation arrays {lb,ub} of the current thread, for blocks of boxes */
+    private final ThreadLocal<double[][]> workspace = new Workspaces.Local<double[][]>() {
+	protected double[][] create() {
+	    return new double[][] { new double[0], new double[0] };
+	}
+    };
+
     public Equation(Function f) {
 	super(f);
     }
 
+    /**
+     * Return the HC4 contractor of this equation, or null if f
+     * has no symbolic form (see Function.symbolic).
+     */
+    public Contractor contractor() {
+	ExprFunction e = func.symbolic();
+	return e==null ? null : new HC4Revise(e);
+    }
+
     public boolean violated(Box b) {
-	Interval res = this.func.eval(b);
-	return !(res.contains(0));
+	return !this.func.intersects(b, 0, 0);
+    }
+
+    public void notViolated(BoxBlock xs, long[] mask) {
+	int n = xs.size();
+	double[][] w = workspace.get();
+	if (w[0].length < n) {
+	    w[0] = new double[xs.capacity()];
+	    w[1] = new double[xs.capacity()];
+	}
+	double[] lb = w[0];
+	double[] ub = w[1];
+	this.func.eval(xs, lb, ub);
+
+	// 64 boxes per word, without branches
+	for (int j = 0; j < (n + 63) >>> 6; j++) {
+	    long word = 0;
+	    int end = Math.min(n, (j + 1) << 6);
+	    for (int k = j << 6; k < end; k++) {
+		word |= (lb[k] <= 0 && ub[k] >= 0 ? 1L : 0L) << k;
+	    }
+	    mask[j] = word;
+	}
     }
 }
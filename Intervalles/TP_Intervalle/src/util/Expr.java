@@ -0,0 +1,110 @@
+package util;
+
+/**
+ * A node of a symbolic expression (DAG).
+ *
+ * Nodes are immutable and created by an ExprBuilder, which
+ * guarantees that two structurally equal expressions built
+ * by the same builder are the same object (common subexpressions
+ * are shared).
+ *
+ * @see ExprBuilder
+ * @see Tape
+ */
+public final class Expr {
+
+	/* Operators */
+	public static final int VAR   = 0;
+	public static final int CST   = 1;
+	public static final int ADD   = 2;
+	public static final int SUB   = 3;
+	public static final int MUL   = 4;
+	public static final int MINUS = 5;
+	public static final int SQR   = 6;
+	public static final int SQRT  = 7;
+
+	/** The operator of this node. */
+	final int op;
+
+	/** First argument (null for VAR and CST). */
+	final Expr left;
+
+	/** Second argument (null for unary operators, VAR and CST). */
+	final Expr right;
+
+	/** Index of the variable (VAR only). */
+	final int var;
+
+	/** Value of the constant (CST only). */
+	final double value;
+
+	/** Creation rank in the builder (not part of the structure). */
+	final int id;
+
+	Expr(int id, int op, Expr left, Expr right, int var, double value) {
+		this.id = id;
+		this.op = op;
+		this.left = left;
+		this.right = right;
+		this.var = var;
+		this.value = value;
+	}
+
+	/**
+	 * Return the operator of this node.
+	 */
+	public int getOp() {
+		return op;
+	}
+
+	/**
+	 * True iff this node is a constant.
+	 */
+	public boolean isConstant() {
+		return op==CST;
+	}
+
+	/**
+	 * Return the value of a constant node.
+	 */
+	public double getValue() {
+		return value;
+	}
+
+	/**
+	 * Structural equality, arguments being compared by reference
+	 * (they are already shared by the builder).
+	 */
+	public boolean equals(Object other) {
+		if (!(other instanceof Expr)) return false;
+		Expr e=(Expr) other;
+		return op==e.op && left==e.left && right==e.right && var==e.var
+				&& Double.doubleToLongBits(value)==Double.doubleToLongBits(e.value);
+	}
+
+	public int hashCode() {
+		long v=Double.doubleToLongBits(value);
+		int h=op;
+		h=31*h+System.identityHashCode(left);
+		h=31*h+System.identityHashCode(right);
+		h=31*h+var;
+		h=31*h+(int)(v^(v>>>32));
+		return h;
+	}
+
+	/**
+	 * Display the expression
+	 */
+	public String toString() {
+		switch (op) {
+		case VAR :   return "x" + var;
+		case CST :   return Double.toString(value);
+		case ADD :   return "(" + left + "+" + right + ")";
+		case SUB :   return "(" + left + "-" + right + ")";
+		case MUL :   return left + "*" + right;
+		case MINUS : return "-" + left;
+		case SQR :   return left + "^2";
+		default :    return "sqrt(" + left + ")";
+		}
+	}
+}
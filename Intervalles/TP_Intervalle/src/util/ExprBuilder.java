@@ -0,0 +1,132 @@
+package util;
+
+import java.util.HashMap;
+
+/**
+ * Factory of symbolic expressions.
+ *
+ * The builder shares common subexpressions (building twice
+ * the same expression returns the same node) and folds
+ * operations on constants, e.g.:
+ * <pre>
+ *   ExprBuilder b = new ExprBuilder();
+ *   Expr x = b.var(0);
+ *   Expr e = b.sub(b.sqr(b.sub(b.cst(2), x)), b.sqr(b.cst(3)));  // (2-x0)^2-9
+ * </pre>
+ * Expressions of different builders must not be mixed.
+ */
+public class ExprBuilder {
+
+	/* Canonical nodes (each node is its own key) */
+	private HashMap<Expr,Expr> nodes = new HashMap<Expr,Expr>();
+
+	/**
+	 * Return the node equal to "e", registering "e" if this is a new one.
+	 */
+	private Expr intern(int op, Expr left, Expr right, int var, double value) {
+		Expr e=new Expr(nodes.size(), op, left, right, var, value);
+		Expr old=nodes.get(e);
+		if (old!=null) return old;
+		nodes.put(e, e);
+		return e;
+	}
+
+	/**
+	 * Return the number of distinct nodes created so far.
+	 */
+	public int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Return the ith variable x_i.
+	 */
+	public Expr var(int i) {
+		if (i<0) throw new IllegalArgumentException("Negative variable index");
+		return intern(Expr.VAR, null, null, i, 0);
+	}
+
+	/**
+	 * Return the constant "value".
+	 */
+	public Expr cst(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			throw new IllegalArgumentException("Constant must be a finite number");
+		if (value==0) value=0; // -0.0 and 0.0 are the same constant
+		return intern(Expr.CST, null, null, 0, value);
+	}
+
+	/**
+	 * Return e1+e2.
+	 */
+	public Expr add(Expr e1, Expr e2) {
+		if (e1.isConstant() && e2.isConstant()) return cst(e1.value+e2.value);
+		if (e1.isConstant() && e1.value==0) return e2;
+		if (e2.isConstant() && e2.value==0) return e1;
+		return commutative(Expr.ADD, e1, e2);
+	}
+
+	/**
+	 * Return e1-e2.
+	 */
+	public Expr sub(Expr e1, Expr e2) {
+		if (e1.isConstant() && e2.isConstant()) return cst(e1.value-e2.value);
+		if (e2.isConstant() && e2.value==0) return e1;
+		if (e1.isConstant() && e1.value==0) return minus(e2);
+		return intern(Expr.SUB, e1, e2, 0, 0);
+	}
+
+	/**
+	 * Return e1*e2.
+	 */
+	public Expr mul(Expr e1, Expr e2) {
+		if (e1.isConstant() && e2.isConstant()) return cst(e1.value*e2.value);
+		if (e1.isConstant() && e1.value==1) return e2;
+		if (e2.isConstant() && e2.value==1) return e1;
+		return commutative(Expr.MUL, e1, e2);
+	}
+
+	/**
+	 * Return a*e.
+	 */
+	public Expr scalmul(double a, Expr e) {
+		return mul(cst(a), e);
+	}
+
+	/**
+	 * Return -e.
+	 */
+	public Expr minus(Expr e) {
+		if (e.isConstant()) return cst(-e.value);
+		if (e.op==Expr.MINUS) return e.left;
+		return intern(Expr.MINUS, e, null, 0, 0);
+	}
+
+	/**
+	 * Return e^2.
+	 */
+	public Expr sqr(Expr e) {
+		if (e.isConstant()) return cst(e.value*e.value);
+		if (e.op==Expr.MINUS) return sqr(e.left);
+		return intern(Expr.SQR, e, null, 0, 0);
+	}
+
+	/**
+	 * Return sqrt(e).
+	 * A negative constant is not folded (its square root is empty).
+	 */
+	public Expr sqrt(Expr e) {
+		if (e.isConstant() && e.value>=0) return cst(Math.sqrt(e.value));
+		return intern(Expr.SQRT, e, null, 0, 0);
+	}
+
+	/**
+	 * Build a commutative operation with a normalized order
+	 * of the arguments (older node first, constants last), so
+	 * that e1 op e2 and e2 op e1 give the same node.
+	 */
+	private Expr commutative(int op, Expr e1, Expr e2) {
+		boolean swap = e1.isConstant()? !e2.isConstant() : (!e2.isConstant() && e2.id<e1.id);
+		return swap? intern(op, e2, e1, 0, 0) : intern(op, e1, e2, 0, 0);
+	}
+}
@@ -0,0 +1,150 @@
+package util;
+
+/**
+ * Function given by a symbolic expression, evaluated
+ * through its compiled tape.
+ *
+ * The evaluation arrays are allocated once per thread (or taken
+ * from the Workspaces bound to the thread), so the same function
+ * can be shared by several solvers.
+ */
+public class ExprFunction extends Function {
+
+	private final Expr expr;
+
+	private final Tape tape;
+
+	/* Evaluation arrays {lb,ub} of the current thread */
+	private final ThreadLocal<double[][]> workspace = new Workspaces.Local<double[][]>() {
+		protected double[][] create() {
+			return new double[][] { new double[tape.size()], new double[tape.size()] };
+		}
+	};
+
+	/* Derivative arrays {dlb,dub} of the current thread */
+	private final ThreadLocal<double[][]> dworkspace = new Workspaces.Local<double[][]>() {
+		protected double[][] create() {
+			int n = tape.size()*tape.nbVar();
+			return new double[][] { new double[n], new double[n] };
+		}
+	};
+
+	public ExprFunction(Expr expr) {
+		this.expr = expr;
+		this.tape = new Tape(expr);
+	}
+
+	/**
+	 * Return the expression of this function.
+	 */
+	public Expr getExpr() {
+		return expr;
+	}
+
+	public ExprFunction symbolic() {
+		return this;
+	}
+
+	/**
+	 * Return the compiled form of this function.
+	 */
+	public Tape getTape() {
+		return tape;
+	}
+
+	/**
+	 * Return this function compiled to a JVM class, or this function
+	 * if the expression is too large to be compiled.
+	 * @see TapeCompiler
+	 */
+	public Function compile() {
+		try {
+			return TapeCompiler.compile(expr);
+		} catch (IllegalArgumentException e) {
+			return this;
+		}
+	}
+
+	public Interval eval(Box x) {
+		Interval res = Interval.EMPTY();
+		eval(x, res);
+		return res;
+	}
+
+	public void eval(Box x, Interval res) {
+		eval(x, res, false);
+	}
+
+	public boolean hasOutwardRounding() {
+		return true;
+	}
+
+	/**
+	 * Evaluation on the tape rounded outward (see Tape.eval).
+	 */
+	public void evalOutward(Box x, Interval res) {
+		eval(x, res, true);
+	}
+
+	private void eval(Box x, Interval res, boolean outward) {
+		double[][] w = workspace.get();
+		if (tape.eval(x, w[0], w[1], outward)) {
+			int k = tape.output(0);
+			res.set(w[0][k], w[1][k]);
+		} else
+			res.setToEmpty();
+	}
+
+	public boolean intersects(Box x, double lb, double ub) {
+		double[][] w = workspace.get();
+		if (!tape.eval(x, w[0], w[1])) return false;
+		int k = tape.output(0);
+		return w[0][k] <= ub && w[1][k] >= lb;
+	}
+
+	public boolean hasGradient() {
+		return true;
+	}
+
+	/**
+	 * Partial derivatives, by automatic differentiation (see Tape.evalGradient).
+	 * The derivatives w.r.t. the variables not in the expression are [0,0].
+	 */
+	public void evalGradient(Box x, Interval[] grad) {
+		evalWithGradient(x, null, grad, false);
+	}
+
+	public void evalGradientOutward(Box x, Interval[] grad) {
+		evalWithGradient(x, null, grad, true);
+	}
+
+	/**
+	 * Value and partial derivatives in a single pass on the tape.
+	 *
+	 * @param res may be null (only the derivatives are computed).
+	 */
+	public void evalWithGradient(Box x, Interval res, Interval[] grad) {
+		evalWithGradient(x, res, grad, false);
+	}
+
+	private void evalWithGradient(Box x, Interval res, Interval[] grad, boolean outward) {
+		double[][] w = workspace.get();
+		double[][] dw = dworkspace.get();
+		int k = tape.output(0);
+		int m = tape.nbVar();
+		if (tape.evalGradient(x, w[0], w[1], dw[0], dw[1], outward)) {
+			if (res!=null) res.set(w[0][k], w[1][k]);
+			for (int i=0; i<x.dim(); i++) {
+				if (i<m) grad[i].set(dw[0][k*m+i], dw[1][k*m+i]);
+				else grad[i].set(0, 0);
+			}
+		} else {
+			if (res!=null) res.setToEmpty();
+			for (int i=0; i<x.dim(); i++) grad[i].setToEmpty();
+		}
+	}
+
+	public String toString() {
+		return expr.toString();
+	}
+}
@@ -4,4 +4,109 @@ package util;
 public abstract class Function {
 
     public abstract Interval eval(Box x);
+
+    /**
+     * Evaluate in a box and store the result in "res".
+     * Subclasses should override this method to avoid allocating
+     * temporary intervals.
+     */
+    public void eval(Box x, Interval res) {
+	res.set(eval(x));
+    }
+
+    /**
+     * Return true if f(x) meets [lb,ub] (false if f(x) is empty).
+     * This default implementation evaluates f(x) in a new interval;
+     * subclasses may override it with the bounds kernels of IMath.
+     */
+    public boolean intersects(Box x, double lb, double ub) {
+	Interval res = Interval.EMPTY();
+	eval(x, res);
+	return !res.isEmpty() && res.getLB() <= ub && res.getUB() >= lb;
+    }
+
+    /**
+     * Evaluate in all the boxes of a block: the result for the kth
+     * box is stored in [lb[k],ub[k]] (empty: [-oo,-oo]).
+     * This default implementation evaluates the boxes one by one;
+     * subclasses may override it with loops on the bounds arrays.
+     */
+    public void eval(BoxBlock xs, double[] lb, double[] ub) {
+	Box x = new Box(xs.dim());
+	Interval res = Interval.EMPTY();
+	for (int k = 0; k < xs.size(); k++) {
+	    xs.get(k, x);
+	    eval(x, res);
+	    lb[k] = res.getLB();
+	    ub[k] = res.getUB();
+	}
+    }
+
+    /**
+     * Return true if the function provides its partial derivatives
+     * (evalGradient). False by default.
+     */
+    public boolean hasGradient() {
+	return false;
+    }
+
+    /**
+     * Evaluate the partial derivatives in a box: grad[i] is set to an
+     * enclosure of df/dxi over x (grad has at least x.dim() intervals).
+     *
+     * @throws UnsupportedOperationException if the function does not
+     *         provide its derivatives (see hasGradient).
+     */
+    public void evalGradient(Box x, Interval[] grad) {
+	throw new UnsupportedOperationException("No derivative for " + getClass().getName());
+    }
+
+    /**
+     * Return true if the function can be evaluated with outward
+     * rounding (evalOutward, evalGradientOutward). False by default.
+     */
+    public boolean hasOutwardRounding() {
+	return false;
+    }
+
+    /**
+     * Same as eval(x,res), each operation being rounded outward:
+     * res encloses the exact range of f over x, not only its
+     * floating-point evaluation.
+     *
+     * @throws UnsupportedOperationException if not supported
+     *         (see hasOutwardRounding).
+     */
+    public void evalOutward(Box x, Interval res) {
+	throw new UnsupportedOperationException("No outward rounding for " + getClass().getName());
+    }
+
+    /**
+     * Same as evalGradient(x,grad), rounded outward (see evalOutward).
+     *
+     * @throws UnsupportedOperationException (cf. evalOutward)
+     */
+    public void evalGradientOutward(Box x, Interval[] grad) {
+	throw new UnsupportedOperationException("No outward rounding for " + getClass().getName());
+    }
+
+    /**
+     * Return the same function in symbolic form (e.g., for HC4Revise),
+     * or null if it has none. This default implementation returns null.
+     */
+    public ExprFunction symbolic() {
+	return null;
+    }
+
+    /**
+     * Evaluate the function and its partial derivatives in a box:
+     * res is set to f(x) and grad[i] to df/dxi over x.
+     * This default implementation calls eval and evalGradient.
+     *
+     * @throws UnsupportedOperationException (cf. evalGradient)
+     */
+    public void evalWithGradient(Box x, Interval res, Interval[] grad) {
+	eval(x, res);
+	evalGradient(x, grad);
+    }
 }
@@ -0,0 +1,116 @@
+package util;
+
+/**
+ * HC4Revise contractor for an equation f(x)=0 (or, more generally,
+ * for a constraint f(x) in [lb,ub]).
+ *
+ * The forward phase evaluates every node of the expression of f
+ * in the box (IMath forward operators). The root is then intersected
+ * with [0,0] (resp. [lb,ub]) and the backward phase projects each node onto its
+ * arguments (IMath *Bwd operators), from the root down to the
+ * variables, whose domains are finally intersected with the box.
+ *
+ * One interval is allocated per node and per thread at the first
+ * call (see Workspaces); subsequent calls allocate nothing.
+ */
+public class HC4Revise extends Contractor {
+
+	private final Tape tape;
+
+	private final double lb;   // f(x) in [lb,ub]
+
+	private final double ub;
+
+	/* The interval of each node, for the current thread */
+	private final ThreadLocal<Interval[]> workspace = new Workspaces.Local<Interval[]>() {
+		protected Interval[] create() {
+			Interval[] nodes = new Interval[tape.size()];
+			for (int k=0; k<nodes.length; k++)
+				nodes[k] = Interval.ALL_REALS();
+			return nodes;
+		}
+	};
+
+	/**
+	 * Build the contractor for f(x)=0.
+	 */
+	public HC4Revise(ExprFunction f) {
+		this(f, 0, 0);
+	}
+
+	/**
+	 * Build the contractor for f(x) in [lb,ub].
+	 */
+	public HC4Revise(ExprFunction f, double lb, double ub) {
+		this.tape = f.getTape();
+		this.lb = lb;
+		this.ub = ub;
+	}
+
+	public void contract(Box x) {
+		Interval[] nodes = workspace.get();
+
+		if (!forward(x, nodes)) { x.setToEmpty(); return; }
+
+		Interval root = nodes[tape.output(0)];
+		root.setToInter(lb, ub);
+		if (root.isEmpty()) { x.setToEmpty(); return; }
+
+		if (!backward(nodes)) { x.setToEmpty(); return; }
+
+		for (int k=0; k<nodes.length; k++) {
+			if (tape.op[k]==Expr.VAR && !x.setToInter(tape.var[k], nodes[k])) return;
+		}
+	}
+
+	/**
+	 * Evaluate all the nodes in x.
+	 *
+	 * @return false if some node is empty
+	 */
+	private boolean forward(Box x, Interval[] nodes) {
+		if (x.isEmpty()) return false;
+		for (int k=0; k<nodes.length; k++) {
+			Interval y = nodes[k];
+			int a = tape.left[k];
+			int b = tape.right[k];
+			switch (tape.op[k]) {
+			case Expr.VAR :   y.set(x.getLB(tape.var[k]), x.getUB(tape.var[k])); break;
+			case Expr.CST :   y.set(tape.value[k], tape.value[k]); break;
+			case Expr.ADD :   IMath.add(nodes[a], nodes[b], y); break;
+			case Expr.SUB :   IMath.sub(nodes[a], nodes[b], y); break;
+			case Expr.MUL :   IMath.mul(nodes[a], nodes[b], y); break;
+			case Expr.MINUS : IMath.minus(nodes[a], y); break;
+			case Expr.SQR :   IMath.sqr(nodes[a], y); break;
+			case Expr.SQRT :  IMath.sqrt(nodes[a], y); break;
+			}
+			if (y.isEmpty()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Project each node onto its arguments, in reverse order.
+	 *
+	 * @return false if some node becomes empty
+	 */
+	private boolean backward(Interval[] nodes) {
+		for (int k=nodes.length-1; k>=0; k--) {
+			Interval y = nodes[k];
+			int a = tape.left[k];
+			int b = tape.right[k];
+			switch (tape.op[k]) {
+			case Expr.VAR :
+			case Expr.CST :   continue;
+			case Expr.ADD :   IMath.addBwd(y, nodes[a], nodes[b]); break;
+			case Expr.SUB :   IMath.subBwd(y, nodes[a], nodes[b]); break;
+			case Expr.MUL :   IMath.mulBwd(y, nodes[a], nodes[b]); break;
+			case Expr.MINUS : IMath.minusBwd(y, nodes[a]); break;
+			case Expr.SQR :   IMath.sqrBwd(y, nodes[a]); break;
+			case Expr.SQRT :  IMath.sqrtBwd(y, nodes[a]); break;
+			}
+			if (nodes[a].isEmpty() || (b>=0 && nodes[b].isEmpty())) return false;
+		}
+		return true;
+	}
+}
@@ -3,6 +3,15 @@ package util;
 /**
  * Last update: September 06, 2011
  *  		
+ * Each operator comes in three flavors:
+ * <ul>
+ * <li> op(x1,...) returns a new interval,
+ * <li> op(x1,...,y) writes the result in a caller-supplied interval "y"
+ *      (y may be one of the arguments) and allocates nothing,
+ * <li> opLB(...)/opUB(...) work on raw bounds of nonempty intervals.
+ * </ul>
+ * The backward operators (*Bwd) contract their arguments in place
+ * and allocate nothing.
  */
 public class IMath {
 
@@ -10,133 +19,334 @@ public class IMath {
 	 *  Return -x. 
 	 */
 	public static Interval minus(Interval x) {
-		if (x.isEmpty()) return Interval.EMPTY();
-		return new Interval(-x.getUB(), -x.getLB());
+		Interval y=Interval.EMPTY();
+		minus(x,y);
+		return y;
+	}
+
+	/**
+	 *  Set y to -x.
+	 */
+	public static void minus(Interval x, Interval y) {
+		if (x.isEmpty()) { y.setToEmpty(); return; }
+		y.set(-x.getUB(), -x.getLB());
 	}
 	
 	/** 
 	 * Contract x w.r.t y=-x. 
 	 */
 	public static void minusBwd(Interval y, Interval x) {
-		x.setToInter(minus(y));
+		if (y.isEmpty()) { x.setToEmpty(); return; }
+		x.setToInter(-y.getUB(), -y.getLB());
 	}
 
 	/** 
 	 * Return x1+x2. 
 	 */
 	public static Interval add(Interval x1, Interval x2) {
-		if (x1.isEmpty() || x2.isEmpty()) return Interval.EMPTY();
+		Interval y=Interval.EMPTY();
+		add(x1,x2,y);
+		return y;
+	}
 		 
-		double _lb;
-		double _ub;
-		if (x1.getLB()==Double.NEGATIVE_INFINITY || x2.getLB()==Double.NEGATIVE_INFINITY) {
-			_lb = Double.NEGATIVE_INFINITY;
+	/**
+	 * Set y to x1+x2.
+	 */
+	public static void add(Interval x1, Interval x2, Interval y) {
+		if (x1.isEmpty() || x2.isEmpty()) { y.setToEmpty(); return; }
+		y.set(addLB(x1.getLB(), x2.getLB()), addUB(x1.getUB(), x2.getUB()));
+	}
+
+	/**
+	 * Lower bound of x1+x2, given the lower bounds of x1 and x2.
+	 */
+	public static double addLB(double lb1, double lb2) {
+		if (lb1==Double.NEGATIVE_INFINITY || lb2==Double.NEGATIVE_INFINITY) {
+			return Double.NEGATIVE_INFINITY;
 		} else {
-			_lb = x1.getLB() + x2.getLB();
+			return lb1 + lb2;
 		}
-		if (x1.getUB()==Double.POSITIVE_INFINITY || x2.getUB()==Double.POSITIVE_INFINITY) {
-			_ub = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Upper bound of x1+x2, given the upper bounds of x1 and x2.
+	 */
+	public static double addUB(double ub1, double ub2) {
+		if (ub1==Double.POSITIVE_INFINITY || ub2==Double.POSITIVE_INFINITY) {
+			return Double.POSITIVE_INFINITY;
 		} else {
-			_ub = x1.getUB() + x2.getUB();
+			return ub1 + ub2;
 		}			
-		return new Interval(_lb,_ub);
 	}
 	
 	/** 
 	 * Return a*x.
 	 */
 	public static Interval scalmul(double a, Interval x) {
-		if (x.isEmpty() || a==Double.NEGATIVE_INFINITY || a==Double.POSITIVE_INFINITY) return Interval.EMPTY();
+		Interval y=Interval.EMPTY();
+		scalmul(a,x,y);
+		return y;
+	}
 		 
-		if (a==0) return new Interval(0,0);
-		if (a<0) return
-				new Interval(x.getUB()==Double.POSITIVE_INFINITY? Double.NEGATIVE_INFINITY : a*x.getUB(),
-						x.getLB()==Double.NEGATIVE_INFINITY? Double.POSITIVE_INFINITY : a*x.getLB());
-		else return
-			new Interval(x.getLB()==Double.NEGATIVE_INFINITY? Double.NEGATIVE_INFINITY : a*x.getLB(),
-					x.getUB()==Double.POSITIVE_INFINITY? Double.POSITIVE_INFINITY : a*x.getUB());
+	/**
+	 * Set y to a*x.
+	 */
+	public static void scalmul(double a, Interval x, Interval y) {
+		if (x.isEmpty() || a==Double.NEGATIVE_INFINITY || a==Double.POSITIVE_INFINITY) { y.setToEmpty(); return; }
+		y.set(scalmulLB(a, x.getLB(), x.getUB()), scalmulUB(a, x.getLB(), x.getUB()));
+	}
+
+	/**
+	 * Lower bound of a*[lb,ub] (a finite).
+	 */
+	public static double scalmulLB(double a, double lb, double ub) {
+		if (a==0) return 0;
+		if (a<0) return ub==Double.POSITIVE_INFINITY? Double.NEGATIVE_INFINITY : a*ub;
+		else return lb==Double.NEGATIVE_INFINITY? Double.NEGATIVE_INFINITY : a*lb;
+	}
+
+	/**
+	 * Upper bound of a*[lb,ub] (a finite).
+	 */
+	public static double scalmulUB(double a, double lb, double ub) {
+		if (a==0) return 0;
+		if (a<0) return lb==Double.NEGATIVE_INFINITY? Double.POSITIVE_INFINITY : a*lb;
+		else return ub==Double.POSITIVE_INFINITY? Double.POSITIVE_INFINITY : a*ub;
 	}
 	
 	/** 
 	 * Contract x1 and x2 w.r.t y=x1+x2. 
 	 */
 	public static void addBwd(Interval y, Interval x1, Interval x2) {
-		x1.setToInter(sub(y,x2));
-		x2.setToInter(sub(y,x1));
+		interSub(x1, y, x2);
+		interSub(x2, y, x1);
 	}
 	
 	/** 
 	 * Return x1-x2.(Time stamp of the new interval is "now").
 	 */
 	public static Interval sub(Interval x1, Interval x2) {
-		if (x1.isEmpty() || x2.isEmpty()) return Interval.EMPTY();
-		 
-		double _lb;
-		double _ub;
-		if (x1.getLB()==Double.NEGATIVE_INFINITY || x2.getUB()==Double.POSITIVE_INFINITY) {
-			_lb = Double.NEGATIVE_INFINITY;
+		Interval y=Interval.EMPTY();
+		sub(x1,x2,y);
+		return y;
+	}
+	
+	/**
+	 * Set y to x1-x2.
+	 */
+	public static void sub(Interval x1, Interval x2, Interval y) {
+		if (x1.isEmpty() || x2.isEmpty()) { y.setToEmpty(); return; }
+		y.set(subLB(x1.getLB(), x2.getUB()), subUB(x1.getUB(), x2.getLB()));
+	}
+
+	/**
+	 * Lower bound of x1-x2, given the lower bound of x1
+	 * and the upper bound of x2.
+	 */
+	public static double subLB(double lb1, double ub2) {
+		if (lb1==Double.NEGATIVE_INFINITY || ub2==Double.POSITIVE_INFINITY) {
+			return Double.NEGATIVE_INFINITY;
 		} else {
-			_lb = x1.getLB() - x2.getUB();
+			return lb1 - ub2;
 		}
-		if (x1.getUB()==Double.POSITIVE_INFINITY || x2.getLB()==Double.NEGATIVE_INFINITY) {
-			_ub = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Upper bound of x1-x2, given the upper bound of x1
+	 * and the lower bound of x2.
+	 */
+	public static double subUB(double ub1, double lb2) {
+		if (ub1==Double.POSITIVE_INFINITY || lb2==Double.NEGATIVE_INFINITY) {
+			return Double.POSITIVE_INFINITY;
 		} else {
-			_ub = x1.getUB() - x2.getLB();
-		}			
-		return new Interval(_lb,_ub);
+			return ub1 - lb2;
+		}
 	}
 	
-	
 	/** 
 	 * Contract x1 and x2 w.r.t y=x1-x2. 
 	 */
 	public static void subBwd(Interval y, Interval x1, Interval x2) {
-		x1.setToInter(add(y,x2));
-		x2.setToInter(sub(x1,y));
+		interAdd(x1, y, x2);
+		interSub(x2, x1, y);
+	}
+
+	/**
+	 * Intersect x with a+b.
+	 */
+	private static void interAdd(Interval x, Interval a, Interval b) {
+		if (a.isEmpty() || b.isEmpty()) { x.setToEmpty(); return; }
+		x.setToInter(addLB(a.getLB(), b.getLB()), addUB(a.getUB(), b.getUB()));
+	}
+
+	/**
+	 * Intersect x with a-b.
+	 */
+	private static void interSub(Interval x, Interval a, Interval b) {
+		if (a.isEmpty() || b.isEmpty()) { x.setToEmpty(); return; }
+		x.setToInter(subLB(a.getLB(), b.getUB()), subUB(a.getUB(), b.getLB()));
+	}
+
+	/**
+	 * Return x1*x2.
+	 */
+	public static Interval mul(Interval x1, Interval x2) {
+		Interval y=Interval.EMPTY();
+		mul(x1,x2,y);
+		return y;
+	}
+
+	/**
+	 * Set y to x1*x2.
+	 */
+	public static void mul(Interval x1, Interval x2, Interval y) {
+		if (x1.isEmpty() || x2.isEmpty()) { y.setToEmpty(); return; }
+		y.set(mulLB(x1.getLB(), x1.getUB(), x2.getLB(), x2.getUB()),
+			  mulUB(x1.getLB(), x1.getUB(), x2.getLB(), x2.getUB()));
+	}
+
+	/**
+	 * Lower bound of [lb1,ub1]*[lb2,ub2].
+	 */
+	public static double mulLB(double lb1, double ub1, double lb2, double ub2) {
+		return Math.min(Math.min(prod(lb1,lb2), prod(lb1,ub2)), Math.min(prod(ub1,lb2), prod(ub1,ub2)));
+	}
+
+	/**
+	 * Upper bound of [lb1,ub1]*[lb2,ub2].
+	 */
+	public static double mulUB(double lb1, double ub1, double lb2, double ub2) {
+		return Math.max(Math.max(prod(lb1,lb2), prod(lb1,ub2)), Math.max(prod(ub1,lb2), prod(ub1,ub2)));
+	}
+
+	/**
+	 * Contract x1 and x2 w.r.t y=x1*x2.
+	 * A factor is contracted only if the other one does not contain 0.
+	 */
+	public static void mulBwd(Interval y, Interval x1, Interval x2) {
+		if (y.isEmpty() || x1.isEmpty() || x2.isEmpty()) { x1.setToEmpty(); x2.setToEmpty(); return; }
+		interDiv(x1, y, x2);
+		if (x1.isEmpty()) { x2.setToEmpty(); return; }
+		interDiv(x2, y, x1);
+		if (x2.isEmpty()) x1.setToEmpty();
+	}
+
+	/**
+	 * Intersect x with a/b if b does not contain 0 (otherwise,
+	 * or if a quotient of infinite bounds is undefined, x is unchanged).
+	 */
+	private static void interDiv(Interval x, Interval a, Interval b) {
+		if (b.contains(0)) return;
+		double q1=a.getLB()/b.getLB();
+		double q2=a.getLB()/b.getUB();
+		double q3=a.getUB()/b.getLB();
+		double q4=a.getUB()/b.getUB();
+		if (Double.isNaN(q1) || Double.isNaN(q2) || Double.isNaN(q3) || Double.isNaN(q4)) return;
+		x.setToInter(Math.min(Math.min(q1,q2),Math.min(q3,q4)), Math.max(Math.max(q1,q2),Math.max(q3,q4)));
+	}
+
+	/**
+	 * Product of two bounds, with the convention 0*oo=0.
+	 */
+	private static double prod(double a, double b) {
+		if (a==0 || b==0) return 0;
+		return a*b;
 	}
 	
 	/** 
 	 * Return x^2. 
 	 */ 
 	public static Interval sqr(Interval x) {
-		if (x.isEmpty()) return Interval.EMPTY();		
-		double lb=x.getLB();
-		double ub=x.getUB();
-		double _lb;
-		double _ub;
-
-		if (ub < 0) { _lb=ub*ub; _ub=lb*lb; }
-		else if (lb > 0) { _lb=lb*lb; _ub=ub*ub; }
-		else { _lb=0; _ub=Math.max(-lb,ub); _ub*=_ub; }
+		Interval y=Interval.EMPTY();
+		sqr(x,y);
+		return y;
+	}
+
+	/**
+	 * Set y to x^2.
+	 */
+	public static void sqr(Interval x, Interval y) {
+		if (x.isEmpty()) { y.setToEmpty(); return; }
+		y.set(sqrLB(x.getLB(), x.getUB()), sqrUB(x.getLB(), x.getUB()));
+	}
 		
-		return new Interval(_lb,_ub);
+	/**
+	 * Lower bound of [lb,ub]^2.
+	 */
+	public static double sqrLB(double lb, double ub) {
+		if (ub < 0) return ub*ub;
+		else if (lb > 0) return lb*lb;
+		else return 0;
+	}
+
+	/**
+	 * Upper bound of [lb,ub]^2.
+	 */
+	public static double sqrUB(double lb, double ub) {
+		if (ub < 0) return lb*lb;
+		else if (lb > 0) return ub*ub;
+		else { double m=Math.max(-lb,ub); return m*m; }
 	}
 
 	/** 
 	 * Contract x w.r.t. y=x^2
 	 */
 	public static void sqrBwd(Interval y, Interval x) {
-		Interval sqrt=IMath.sqrt(y);		
-		Interval neg_proj=Interval.inter(x,IMath.minus(sqrt));
-		Interval pos_proj=Interval.inter(x,sqrt);
-		x.set(Interval.hull(neg_proj, pos_proj));
+		if (y.isEmpty() || y.getUB()<0.0) { x.setToEmpty(); return; }
+		if (x.isEmpty()) return;
+		double s_lb=sqrtLB(y.getLB());
+		double s_ub=sqrtUB(y.getUB());
+		// x inter sqrt(y)
+		double pos_lb=Math.max(x.getLB(), s_lb);
+		double pos_ub=Math.min(x.getUB(), s_ub);
+		// x inter -sqrt(y)
+		double neg_lb=Math.max(x.getLB(), -s_ub);
+		double neg_ub=Math.min(x.getUB(), -s_lb);
+		// hull of the two projections
+		boolean pos_empty=pos_lb>pos_ub;
+		boolean neg_empty=neg_lb>neg_ub;
+		if (pos_empty && neg_empty) x.setToEmpty();
+		else if (pos_empty) x.set(neg_lb, neg_ub);
+		else if (neg_empty) x.set(pos_lb, pos_ub);
+		else x.set(neg_lb, pos_ub);
 	}
 
 	/** 
 	 * Return sqrt(i). 
 	 */ 
 	public static Interval sqrt(Interval i) {
-		if (i.isEmpty() || i.getUB()<0.0) return Interval.EMPTY();		
-		double _lb=i.getLB()<0 ? 0 : Math.sqrt(i.getLB());
-		double _ub=Math.sqrt(i.getUB());
+		Interval y=Interval.EMPTY();
+		sqrt(i,y);
+		return y;
+	}
 		
-		return new Interval(_lb,_ub);
+	/**
+	 * Set y to sqrt(i).
+	 */
+	public static void sqrt(Interval i, Interval y) {
+		if (i.isEmpty() || i.getUB()<0.0) { y.setToEmpty(); return; }
+		y.set(sqrtLB(i.getLB()), sqrtUB(i.getUB()));
+	}
+
+	/**
+	 * Lower bound of sqrt([lb,ub]) (ub>=0).
+	 */
+	public static double sqrtLB(double lb) {
+		return lb<0 ? 0 : Math.sqrt(lb);
+	}
+
+	/**
+	 * Upper bound of sqrt([lb,ub]) (ub>=0).
+	 */
+	public static double sqrtUB(double ub) {
+		return Math.sqrt(ub);
 	}
 
 	/** 
 	 * Contract x w.r.t. y=sqrt(x)	 
 	 */
 	public static void sqrtBwd(Interval y, Interval x) {
-		x.setToInter(sqr(y));
+		if (y.isEmpty()) { x.setToEmpty(); return; }
+		x.setToInter(sqrLB(y.getLB(), y.getUB()), sqrUB(y.getLB(), y.getUB()));
 	}
 }
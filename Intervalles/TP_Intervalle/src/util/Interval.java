@@ -15,6 +15,17 @@ public class Interval {
 
 	private double lb;
 	private double ub;
+
+	/* Status codes of the exception-free operations (see tryBisect) */
+	/** The interval has been bisected. */
+	public static final int BISECTED = 0;
+	/** Cannot bisect an empty interval. */
+	public static final int EMPTY_ITV = 1;
+	/** Cannot bisect a degenerated interval. */
+	public static final int DEGENERATED = 2;
+	/** The bisection point is not strictly inside the interval
+	 * (e.g. no floating-point number between the bounds). */
+	public static final int POINT_OUTSIDE = 3;
 	
 	/**
 	 * Create an (instance of the) empty interval
@@ -47,10 +58,23 @@ public class Interval {
 	}
 
 	private void normalize() {
-		if (lb>ub) throw new InvalidIntervalOp("Bounds in reverse order");
-		if (lb==Double.POSITIVE_INFINITY || ub==Double.NEGATIVE_INFINITY)
-			setToEmpty();
+		if (!tryNormalize()) throw new InvalidIntervalOp("Bounds in reverse order");
 	} 
+
+	/**
+	 * Same as normalize() without exception: the interval is set to
+	 * the empty interval if the bounds are in reverse order.
+	 * No branch (conditional moves only).
+	 * 
+	 * @return false if the bounds were in reverse order.
+	 */
+	private boolean tryNormalize() {
+		boolean reversed = lb>ub;
+		boolean empty = reversed | lb==Double.POSITIVE_INFINITY | ub==Double.NEGATIVE_INFINITY;
+		lb = empty? EMPTY_LB : lb;
+		ub = empty? EMPTY_UB : ub;
+		return !reversed;
+	}
 	
 	/** 
 	 * Create a copy of "other".
@@ -105,6 +129,18 @@ public class Interval {
 		normalize();
 	}
 
+	/** 
+	 * Set this interval to [_lb,_ub], or to the empty interval if
+	 * _lb>_ub (instead of throwing an exception).
+	 * 
+	 * @return false if _lb>_ub.
+	 */
+	public boolean trySet(double _lb, double _ub) {
+		lb = _lb;
+		ub = _ub;
+		return tryNormalize();
+	}
+
 	/** 
 	 * Set the bounds of this interval to that of "other".
 	 * (no intersection). 
@@ -144,6 +180,14 @@ public class Interval {
 			return ub-lb;
 		}
 	}
+
+	/** 
+	 * Return the diameter, without exception: +oo if a bound
+	 * is infinite, NaN if the interval is empty. 
+	 */
+	public double tryDiam() {
+		return ub-lb; // [-oo,-oo] gives NaN
+	}
 	
 	/** 
 	 * Return the intersection of x1 & x2 
@@ -161,17 +205,25 @@ public class Interval {
 		if (isEmpty()) return;
 		if (other.isEmpty()) { setToEmpty(); return; }
 		
-		if (lb<other.getLB()) {
-			this.lb = other.getLB();
+		setToInter(other.getLB(), other.getUB());
+	}
+
+	/** 
+	 * Set this interval to the intersection of itself with [_lb,_ub].
+	 * The intersection is empty if _lb>_ub.
+	 */ 
+	public void setToInter(double _lb, double _ub) {
+		if (isEmpty()) return;
+		
+		if (lb<_lb) {
+			this.lb = _lb;
 		} 
 		
-		if (ub>other.getUB()) {
-			this.ub = other.getUB();
+		if (ub>_ub) {
+			this.ub = _ub;
 		}
 		
-		if (lb>ub) setToEmpty();
-		
-		normalize();
+		tryNormalize(); // empty if lb>ub
 	}
 
 	/** 
@@ -220,16 +272,34 @@ public class Interval {
 	 * </ul>
 	 */
 	public double mid() {
+		return mid(lb, ub);
+	}
+
+	/**
+	 * Return the midpoint of the (nonempty) interval [lb,ub].
+	 * Same conventions as mid(). 
+	 */
+	static double mid(double lb, double ub) {
+		double m = tryMid(lb, ub);
+		if (m!=m) {
+			if (lb==Double.NEGATIVE_INFINITY) throw new InvalidIntervalOp("Undefined midpoint for [-oo,-MAX_VALUE]");
+			else throw new InvalidIntervalOp("Undefined midpoint for [MAX_VALUE,+oo]");
+		}
+		return m;
+	}
+
+	/**
+	 * Same as mid(lb,ub), without exception: return NaN if the
+	 * midpoint is undefined.
+	 */
+	public static double tryMid(double lb, double ub) {
 		if (lb==Double.NEGATIVE_INFINITY) {
 			if (ub==Double.POSITIVE_INFINITY) 
 				return 0;			
-			else { 
-				if (ub==-Double.MAX_VALUE) throw new InvalidIntervalOp("Undefined midpoint for [-oo,-MAX_VALUE]");
-				return -Double.MAX_VALUE;
-			}
+			else 
+				return ub==-Double.MAX_VALUE ? Double.NaN : -Double.MAX_VALUE;
 		} else if (ub==Double.POSITIVE_INFINITY) {
-			if (lb==Double.MAX_VALUE) throw new InvalidIntervalOp("Undefined midpoint for [MAX_VALUE,+oo]");
-			return Double.MAX_VALUE;
+			return lb==Double.MAX_VALUE ? Double.NaN : Double.MAX_VALUE;
 		}
 		else return (lb+ub)/2;
 	}
@@ -254,6 +324,36 @@ public class Interval {
 				new Interval(pt, ub));
 	}
 
+	/** 
+	 * Bisect this interval at point "pt" into "left" and "right" (the
+	 * interval itself may be one of them), without exception.
+	 * 
+	 * @return BISECTED, or the reason why the interval cannot be split
+	 * (EMPTY_ITV, DEGENERATED, POINT_OUTSIDE), in which case left and
+	 * right are unchanged.
+	 */
+	public int tryBisect(double pt, Interval left, Interval right) {
+		int status = bisectStatus(lb, ub, pt);
+		if (status!=BISECTED) return status;
+		double _lb = lb, _ub = ub;
+		left.lb = _lb;
+		left.ub = pt;
+		right.lb = pt;
+		right.ub = _ub;
+		return BISECTED;
+	}
+
+	/**
+	 * Return BISECTED if [lb,ub] can be bisected at "pt" (strictly inside),
+	 * or the reason why it cannot (see tryBisect).
+	 */
+	static int bisectStatus(double lb, double ub, double pt) {
+		if (lb==EMPTY_LB && ub==EMPTY_UB) return EMPTY_ITV;
+		if (lb==ub) return DEGENERATED;
+		if (!(pt>lb && pt<ub)) return POINT_OUTSIDE; // also if pt is NaN
+		return BISECTED;
+	}
+
 	/** 
 	 * Bisect this interval at midpoint and return the two subintervals. 
 	 */
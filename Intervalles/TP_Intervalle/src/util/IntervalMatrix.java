@@ -0,0 +1,241 @@
+package util;
+
+/**
+ * Class representing a matrix A of IR^{m x n} (interval matrix).
+ * 
+ * The bounds are stored row by row in two arrays of doubles (lb and
+ * ub). Point matrices are plain arrays of doubles in the same layout
+ * (a[i*n+j] = A_ij). All the operations are done in place: none of
+ * them allocates.
+ *
+ * The arithmetic operations round outward, as in IntervalVector.
+ */
+public class IntervalMatrix {
+
+	/* Relative threshold of the pivots in invert */
+	static final double PIVOT_EPS = 1e-12;
+
+	private final int m;
+	private final int n;
+	private final double[] lb;
+	private final double[] ub;
+
+	/**
+	 * Build A as the null matrix of IR^{m x n}.
+	 */
+	public IntervalMatrix(int m, int n) {
+		this.m = m;
+		this.n = n;
+		this.lb = new double[m*n];
+		this.ub = new double[m*n];
+	}
+
+	/**
+	 * Return the number of rows (m).
+	 */
+	public int nbRows() {
+		return m;
+	}
+
+	/**
+	 * Return the number of columns (n).
+	 */
+	public int nbCols() {
+		return n;
+	}
+
+	/**
+	 * Return the lower bound of A_ij.
+	 */
+	public double getLB(int i, int j) {
+		return lb[i*n+j];
+	}
+
+	/**
+	 * Return the upper bound of A_ij.
+	 */
+	public double getUB(int i, int j) {
+		return ub[i*n+j];
+	}
+
+	/**
+	 * Set A_ij to [lb,ub].
+	 */
+	public void set(int i, int j, double lb, double ub) {
+		this.lb[i*n+j] = lb;
+		this.ub[i*n+j] = ub;
+	}
+
+	/**
+	 * Set the ith row of A to "row" (e.g., a gradient).
+	 */
+	public void setRow(int i, Interval[] row) {
+		for (int j=0; j<n; j++) {
+			lb[i*n+j] = row[j].getLB();
+			ub[i*n+j] = row[j].getUB();
+		}
+	}
+
+	/**
+	 * Store the midpoint of A in dst (NaN for the entries without
+	 * finite midpoint, cf. Interval.tryMid).
+	 */
+	public void mid(double[] dst) {
+		for (int k=0; k<m*n; k++)
+			dst[k] = Interval.tryMid(lb[k], ub[k]);
+	}
+
+	/**
+	 * Store the radius of A in dst.
+	 */
+	public void rad(double[] dst) {
+		for (int k=0; k<m*n; k++)
+			dst[k] = (ub[k]-lb[k])/2;
+	}
+
+	/**
+	 * A := I - A (A must be square).
+	 */
+	public void setToIdentityMinus() {
+		assert(m==n);
+		for (int k=0; k<m*n; k++) {
+			double l = -ub[k];
+			ub[k] = -lb[k];
+			lb[k] = l;
+		}
+		for (int i=0; i<n; i++) {
+			lb[i*n+i] = Math.nextDown(lb[i*n+i] + 1);
+			ub[i*n+i] = Math.nextUp(ub[i*n+i] + 1);
+		}
+	}
+
+	/**
+	 * y := A*x (y and x must be distinct).
+	 */
+	public void mulVec(IntervalVector x, IntervalVector y) {
+		assert(n==x.size() && m==y.size() && x!=y);
+		for (int i=0; i<m; i++) {
+			double l = 0;
+			double u = 0;
+			for (int j=0; j<n; j++) {
+				int k = i*n+j;
+				l = Math.nextDown(IMath.addLB(l, Math.nextDown(IMath.mulLB(lb[k], ub[k], x.getLB(j), x.getUB(j)))));
+				u = Math.nextUp(IMath.addUB(u, Math.nextUp(IMath.mulUB(lb[k], ub[k], x.getLB(j), x.getUB(j)))));
+			}
+			y.set(i, l, u);
+		}
+	}
+
+	/**
+	 * y := a*x, where a is a point matrix with y.size() rows
+	 * (y and x must be distinct).
+	 */
+	public static void mulVec(double[] a, IntervalVector x, IntervalVector y) {
+		int n = x.size();
+		assert(a.length==y.size()*n && x!=y);
+		for (int i=0; i<y.size(); i++) {
+			double l = 0;
+			double u = 0;
+			for (int j=0; j<n; j++) {
+				double c = a[i*n+j];
+				l = Math.nextDown(IMath.addLB(l, Math.nextDown(IMath.scalmulLB(c, x.getLB(j), x.getUB(j)))));
+				u = Math.nextUp(IMath.addUB(u, Math.nextUp(IMath.scalmulUB(c, x.getLB(j), x.getUB(j)))));
+			}
+			y.set(i, l, u);
+		}
+	}
+
+	/**
+	 * c := a*b, where a is a point matrix with c.nbRows() rows
+	 * (c and b must be distinct).
+	 */
+	public static void mul(double[] a, IntervalMatrix b, IntervalMatrix c) {
+		int p = b.m;
+		int n = b.n;
+		assert(c.n==n && a.length==c.m*p && b!=c);
+		for (int i=0; i<c.m; i++) {
+			for (int j=0; j<n; j++) {
+				double l = 0;
+				double u = 0;
+				for (int k=0; k<p; k++) {
+					double s = a[i*p+k];
+					l = Math.nextDown(IMath.addLB(l, Math.nextDown(IMath.scalmulLB(s, b.lb[k*n+j], b.ub[k*n+j]))));
+					u = Math.nextUp(IMath.addUB(u, Math.nextUp(IMath.scalmulUB(s, b.lb[k*n+j], b.ub[k*n+j]))));
+				}
+				c.lb[i*n+j] = l;
+				c.ub[i*n+j] = u;
+			}
+		}
+	}
+
+	/**
+	 * Invert the n x n point matrix a in place, by Gauss-Jordan
+	 * elimination with partial pivoting. "work" is an array of
+	 * n*n doubles (its content is lost).
+	 *
+	 * @throws SingularMatrixException if a is (numerically) singular
+	 *         (cf. tryInvert).
+	 */
+	public static void invert(double[] a, double[] work, int n) throws SingularMatrixException {
+		if (!tryInvert(a, work, n)) throw new SingularMatrixException();
+	}
+
+	/**
+	 * Same as invert(a,work,n), without exception.
+	 *
+	 * @return false if a is (numerically) singular, i.e., if a pivot is
+	 *         below PIVOT_EPS times the largest entry (a is then lost).
+	 */
+	public static boolean tryInvert(double[] a, double[] work, int n) {
+		// work = identity, then a is reduced to the identity
+		double scale = 0;
+		for (int i=0; i<n*n; i++) {
+			work[i] = 0;
+			scale = Math.max(scale, Math.abs(a[i]));
+		}
+		for (int i=0; i<n; i++) work[i*n+i] = 1;
+		if (!(scale < Double.POSITIVE_INFINITY)) return false; // NaN or oo
+
+		for (int c=0; c<n; c++) {
+			int p = c;
+			for (int i=c+1; i<n; i++)
+				if (Math.abs(a[i*n+c]) > Math.abs(a[p*n+c])) p = i;
+			double piv = a[p*n+c];
+			if (!(Math.abs(piv) > PIVOT_EPS*scale)) return false;
+			if (p!=c) {
+				for (int j=0; j<n; j++) {
+					double t = a[c*n+j]; a[c*n+j] = a[p*n+j]; a[p*n+j] = t;
+					t = work[c*n+j]; work[c*n+j] = work[p*n+j]; work[p*n+j] = t;
+				}
+			}
+			for (int j=0; j<n; j++) {
+				a[c*n+j] /= piv;
+				work[c*n+j] /= piv;
+			}
+			for (int i=0; i<n; i++) {
+				if (i==c) continue;
+				double factor = a[i*n+c];
+				if (factor==0) continue;
+				for (int j=0; j<n; j++) {
+					a[i*n+j] -= factor*a[c*n+j];
+					work[i*n+j] -= factor*work[c*n+j];
+				}
+			}
+		}
+		System.arraycopy(work, 0, a, 0, n*n);
+		return true;
+	}
+
+	/**
+	 * Return A as a string.
+	 */
+	public String toString() {
+		String res="(";
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<n; j++)
+				res+="["+lb[i*n+j]+","+ub[i*n+j]+"]"+(j<n-1?" ":"");
+			res+=(i<m-1?" ;\n ":"");
+		}
+		return res+")";
+	}
+}
@@ -0,0 +1,163 @@
+package util;
+
+/**
+ * Class representing a vector x of IR^n (interval vector).
+ * 
+ * The bounds are stored in two arrays of doubles (lb and ub),
+ * as in Box, empty components being [-oo,-oo]. All the operations
+ * are done in place: none of them allocates.
+ *
+ * Unlike the rest of the package, the arithmetic operations round
+ * outward (each bound computed is moved to the next double with
+ * Math.nextDown/nextUp), so that the Krawczyk operator encloses the
+ * exact result.
+ */
+public class IntervalVector {
+	private final int n;
+	private final double[] lb;
+	private final double[] ub;
+
+	/**
+	 * Build x as the null vector of IR^n ([0,0] components).
+	 */
+	public IntervalVector(int n) {
+		this.n = n;
+		this.lb = new double[n];
+		this.ub = new double[n];
+	}
+
+	/**
+	 * Return the size (n) of x.
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Return the lower bound of x[i].
+	 */
+	public double getLB(int i) {
+		return lb[i];
+	}
+
+	/**
+	 * Return the upper bound of x[i].
+	 */
+	public double getUB(int i) {
+		return ub[i];
+	}
+
+	/**
+	 * Set x[i] to [lb,ub].
+	 */
+	public void set(int i, double lb, double ub) {
+		this.lb[i] = lb;
+		this.ub[i] = ub;
+	}
+
+	/**
+	 * Set x[i] to itv.
+	 */
+	public void set(int i, Interval itv) {
+		set(i, itv.getLB(), itv.getUB());
+	}
+
+	/**
+	 * Set x to the components of the box b.
+	 */
+	public void set(Box b) {
+		assert(n==b.dim());
+		for (int i=0; i<n; i++) {
+			lb[i] = b.getLB(i);
+			ub[i] = b.getUB(i);
+		}
+	}
+
+	/**
+	 * Set x to v.
+	 */
+	public void set(IntervalVector v) {
+		assert(n==v.n);
+		System.arraycopy(v.lb, 0, lb, 0, n);
+		System.arraycopy(v.ub, 0, ub, 0, n);
+	}
+
+	/**
+	 * Store the midpoint of x in dst.
+	 */
+	public void mid(double[] dst) {
+		for (int i=0; i<n; i++)
+			dst[i] = Interval.mid(lb[i], ub[i]);
+	}
+
+	/**
+	 * Store the midpoint of x in v.
+	 */
+	public void mid(Vector v) {
+		assert(n==v.size());
+		for (int i=0; i<n; i++)
+			v.set(i, Interval.mid(lb[i], ub[i]));
+	}
+
+	/**
+	 * Store the radius of x in dst.
+	 */
+	public void rad(double[] dst) {
+		for (int i=0; i<n; i++)
+			dst[i] = (ub[i]-lb[i])/2;
+	}
+
+	/**
+	 * x := x + a*v.
+	 */
+	public void axpy(double a, IntervalVector v) {
+		assert(n==v.n);
+		for (int i=0; i<n; i++) {
+			double l = Math.nextDown(IMath.scalmulLB(a, v.lb[i], v.ub[i]));
+			double u = Math.nextUp(IMath.scalmulUB(a, v.lb[i], v.ub[i]));
+			lb[i] = Math.nextDown(IMath.addLB(lb[i], l));
+			ub[i] = Math.nextUp(IMath.addUB(ub[i], u));
+		}
+	}
+
+	/**
+	 * x := x + p.
+	 */
+	public void addPoint(double[] p) {
+		for (int i=0; i<n; i++) {
+			lb[i] = Math.nextDown(IMath.addLB(lb[i], p[i]));
+			ub[i] = Math.nextUp(IMath.addUB(ub[i], p[i]));
+		}
+	}
+
+	/**
+	 * x := x - p.
+	 */
+	public void subPoint(double[] p) {
+		for (int i=0; i<n; i++) {
+			lb[i] = Math.nextDown(IMath.subLB(lb[i], p[i]));
+			ub[i] = Math.nextUp(IMath.subUB(ub[i], p[i]));
+		}
+	}
+
+	/**
+	 * Return true if x is strictly included in the box b
+	 * (in the interior of b).
+	 */
+	public boolean isInterior(Box b) {
+		assert(n==b.dim());
+		for (int i=0; i<n; i++)
+			if (!(lb[i] > b.getLB(i) && ub[i] < b.getUB(i))) return false;
+		return true;
+	}
+
+	/**
+	 * Return x as a string.
+	 */
+	public String toString() {
+		String res="(";
+		for (int i=0; i<n; i++)
+			res+="["+lb[i]+","+ub[i]+"]"+(i<n-1?" ; ":"");
+		return res+")";
+	}
+}
@@ -0,0 +1,185 @@
+package util;
+
+/**
+ * Krawczyk contractor for a square system f(x)=0 of n equations in n
+ * variables:
+ *
+ *    K(x) = m - Y.f(m) + (I - Y.J(x)).(x - m)
+ *
+ * where m is the midpoint of x, J(x) encloses the Jacobian matrix of f
+ * over x (Function.evalGradient) and Y is the inverse of the midpoint of
+ * J(x). Every solution in x belongs to K(x), so x is replaced by the
+ * intersection of x and K(x); if K(x) is included in the interior of x,
+ * x contains a unique solution (certification). A certified box is then
+ * contracted until it stops shrinking (the convergence is quadratic).
+ *
+ * K(x) is computed with outward rounding: f(m) and J(x) with
+ * Function.evalOutward and evalGradientOutward, the products and sums
+ * of the operator with IntervalVector and IntervalMatrix.
+ *
+ * Nothing is done if a function does not provide its derivatives
+ * (Function.hasGradient) and its outward evaluation
+ * (Function.hasOutwardRounding), or if mid(J(x)) is singular. The work
+ * arrays are allocated once per thread (see Workspaces).
+ */
+public class Krawczyk extends Contractor {
+
+	/* A certified box is contracted while its diameter is divided by at least this factor */
+	static final double SHRINK_RATIO = 0.9;
+
+	/* Maximal number of iterations on a certified box */
+	static final int MAX_ITER = 50;
+
+	private final Function[] f;
+
+	private final int n;
+
+	/* False if a function does not provide its derivatives (rounded outward) */
+	private final boolean derivable;
+
+	/* Work arrays of the current thread */
+	private final ThreadLocal<Workspace> workspace = new Workspaces.Local<Workspace>() {
+		protected Workspace create() {
+			return new Workspace(n);
+		}
+	};
+
+	/**
+	 * Build the contractor for f_0(x)=...=f_{n-1}(x)=0, with x in R^n.
+	 */
+	public Krawczyk(Function... f) {
+		this.f = f;
+		this.n = f.length;
+		boolean d = true;
+		for (Function fi : f) d &= fi.hasGradient() && fi.hasOutwardRounding();
+		this.derivable = d;
+	}
+
+	/**
+	 * Build the contractor for a square system of equations.
+	 */
+	public Krawczyk(Equation... eqs) {
+		this(functions(eqs));
+	}
+
+	private static Function[] functions(Equation[] eqs) {
+		Function[] f = new Function[eqs.length];
+		for (int i=0; i<eqs.length; i++) f[i] = eqs[i].getFunction();
+		return f;
+	}
+
+	public void contract(Box x) {
+		contractAndCertify(x);
+	}
+
+	public boolean contractAndCertify(Box x) {
+		if (x.dim()!=n) throw new InvalidBoxOp("Krawczyk: the system must be square.");
+		if (x.isEmpty()) return false;
+		Workspace w = workspace.get();
+
+		if (!step(x, w)) return false;
+		// certified: x contains a unique solution, and so does each K(x).
+		// The last certified box is kept in case a step empties x
+		// (the evaluation of a function may still be inaccurate).
+		for (int k=0; k<MAX_ITER; k++) {
+			double d = x.maxDiam();
+			x.getBounds(w.prev, 0);
+			step(x, w);
+			if (x.isEmpty()) {
+				x.setBounds(w.prev, 0);
+				break;
+			}
+			if (!(x.maxDiam() < SHRINK_RATIO*d)) break;
+		}
+		return true;
+	}
+
+	/**
+	 * One Krawczyk step: x is intersected with K(x).
+	 *
+	 * @return true if K(x) is included in the interior of x.
+	 */
+	private boolean step(Box x, Workspace w) {
+		if (!derivable || x.isEmpty()) return false;
+
+		// midpoint and x - m
+		for (int j=0; j<n; j++) {
+			if (x.getLB(j)==Double.NEGATIVE_INFINITY || x.getUB(j)==Double.POSITIVE_INFINITY) return false;
+		}
+		w.r.set(x);
+		w.r.mid(w.m);
+		for (int j=0; j<n; j++) w.mid.set(j, w.m[j], w.m[j]);
+		w.r.subPoint(w.m);
+
+		// f(m) and J(x)
+		for (int i=0; i<n; i++) {
+			f[i].evalOutward(w.mid, w.itv);
+			if (w.itv.isEmpty()) return false;
+			w.fm.set(i, w.itv);
+			f[i].evalGradientOutward(x, w.row);
+			for (int j=0; j<n; j++)
+				if (w.row[j].isEmpty()) return false;
+			w.J.setRow(i, w.row);
+		}
+
+		// Y = mid(J)^-1
+		w.J.mid(w.Y);
+		if (!IntervalMatrix.tryInvert(w.Y, w.work, n)) return false;
+
+		// K = (I - Y.J).(x - m) - Y.f(m) + m
+		IntervalMatrix.mul(w.Y, w.J, w.C);
+		w.C.setToIdentityMinus();
+		w.C.mulVec(w.r, w.K);
+		IntervalMatrix.mulVec(w.Y, w.fm, w.yf);
+		w.K.axpy(-1, w.yf);
+		w.K.addPoint(w.m);
+
+		for (int i=0; i<n; i++) {
+			double lb = w.K.getLB(i);
+			double ub = w.K.getUB(i);
+			if (lb!=lb || ub!=ub) return false; // NaN
+		}
+		boolean inner = w.K.isInterior(x);
+
+		for (int i=0; i<n; i++) {
+			if (!x.setToInter(i, w.K.getLB(i), w.K.getUB(i))) return false;
+		}
+		return inner;
+	}
+
+	/**
+	 * Work arrays (n variables).
+	 */
+	private static class Workspace {
+		final double[] m;          // midpoint
+		final Box mid;             // midpoint, as a box
+		final Interval itv;
+		final Interval[] row;      // gradient of f_i
+		final IntervalVector r;    // x - m
+		final IntervalVector fm;   // f(m)
+		final IntervalVector yf;   // Y.f(m)
+		final IntervalVector K;
+		final IntervalMatrix J;    // Jacobian
+		final IntervalMatrix C;    // I - Y.J
+		final double[] Y;          // mid(J)^-1
+		final double[] work;       // work array for the inversion
+		final double[] prev;       // bounds of the last certified box
+
+		Workspace(int n) {
+			m = new double[n];
+			mid = new Box(n);
+			itv = Interval.ALL_REALS();
+			row = new Interval[n];
+			for (int i=0; i<n; i++) row[i] = Interval.ALL_REALS();
+			r = new IntervalVector(n);
+			fm = new IntervalVector(n);
+			yf = new IntervalVector(n);
+			K = new IntervalVector(n);
+			J = new IntervalMatrix(n, n);
+			C = new IntervalMatrix(n, n);
+			Y = new double[n*n];
+			work = new double[n*n];
+			prev = new double[2*n];
+		}
+	}
+}
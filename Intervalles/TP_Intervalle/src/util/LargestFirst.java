@@ -0,0 +1,25 @@
+package util;
+
+/**
+ * Bisect the component with maximal diameter at its midpoint
+ * (same choice as Box.bisect()).
+ */
+public class LargestFirst implements Bisector {
+
+	public int variable(Box x, int last) {
+		double sizeMax = Double.NEGATIVE_INFINITY;
+		int varMax = -1;
+		for (int var=0; var<x.dim(); var++) {
+			double sizeI = x.tryDiam(var);
+			if (sizeI>sizeMax) {
+				sizeMax = sizeI;
+				varMax = var;
+			}
+		}
+		return varMax;
+	}
+
+	public double point(Box x, int var) {
+		return Interval.tryMid(x.getLB(var), x.getUB(var));
+	}
+}
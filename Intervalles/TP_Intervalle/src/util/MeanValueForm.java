@@ -0,0 +1,132 @@
+package util;
+
+/**
+ * Mean-value (centered) form of a function f:
+ *
+ *    f(x) is enclosed by f(m) + J(x).(x - m), with m = x.mid()
+ *
+ * where J(x) encloses the gradient of f over x (Function.evalGradient).
+ * The result is always intersected with the natural evaluation of f,
+ * so it is never worse. The mean-value form is tighter on small boxes
+ * when variables occur several times in f (dependency problem); when
+ * each variable occurs once, the natural evaluation is already optimal.
+ *
+ * If f does not provide its derivatives, only the natural evaluation
+ * is used.
+ */
+public class MeanValueForm extends Function {
+
+	private final Function f;
+
+	/* False if f does not provide its derivatives */
+	private final boolean derivable;
+
+	/* Work arrays of the current thread */
+	private final ThreadLocal<Workspace> workspace = new Workspaces.Local<Workspace>() {
+		protected Workspace create() {
+			return new Workspace();
+		}
+	};
+
+	public MeanValueForm(Function f) {
+		this.f = f;
+		this.derivable = f.hasGradient();
+	}
+
+	/**
+	 * Return the function in natural form.
+	 */
+	public Function getFunction() {
+		return f;
+	}
+
+	public Interval eval(Box x) {
+		Interval res = Interval.EMPTY();
+		eval(x, res);
+		return res;
+	}
+
+	public void eval(Box x, Interval res) {
+		f.eval(x, res);
+		if (!derivable || res.isEmpty()) return;
+
+		int n = x.dim();
+		Workspace w = workspace.get();
+		w.resize(n);
+
+		f.evalGradient(x, w.grad);
+		for (int i=0; i<n; i++) {
+			double mi = Interval.tryMid(x.getLB(i), x.getUB(i));
+			if (mi!=mi) return; // no finite midpoint: natural evaluation only
+			w.m[i] = mi;
+			w.mid.set(i, mi, mi);
+		}
+		f.eval(w.mid, w.fm);
+		if (w.fm.isEmpty()) return;
+
+		// f(m) + sum_i J_i(x)*(x_i - m_i)
+		double lb = w.fm.getLB();
+		double ub = w.fm.getUB();
+		for (int i=0; i<n; i++) {
+			Interval g = w.grad[i];
+			if (g.isEmpty()) return;
+			double mi = w.m[i];
+			double d_lb = IMath.subLB(x.getLB(i), mi);
+			double d_ub = IMath.subUB(x.getUB(i), mi);
+			lb = IMath.addLB(lb, IMath.mulLB(g.getLB(), g.getUB(), d_lb, d_ub));
+			ub = IMath.addUB(ub, IMath.mulUB(g.getLB(), g.getUB(), d_lb, d_ub));
+		}
+		if (lb!=lb || ub!=ub) return; // NaN (e.g., oo-oo on unbounded boxes)
+		res.setToInter(lb, ub);
+	}
+
+	public boolean hasGradient() {
+		return f.hasGradient();
+	}
+
+	public boolean hasOutwardRounding() {
+		return f.hasOutwardRounding();
+	}
+
+	/**
+	 * Return the natural form in symbolic form (the contractors
+	 * need no mean-value form), or null.
+	 */
+	public ExprFunction symbolic() {
+		return f.symbolic();
+	}
+
+	public void evalOutward(Box x, Interval res) {
+		f.evalOutward(x, res);
+	}
+
+	public void evalGradientOutward(Box x, Interval[] grad) {
+		f.evalGradientOutward(x, grad);
+	}
+
+	public void evalGradient(Box x, Interval[] grad) {
+		f.evalGradient(x, grad);
+	}
+
+	public String toString() {
+		return "mvf(" + f + ")";
+	}
+
+	/**
+	 * Work arrays, reallocated when the dimension changes.
+	 */
+	private static class Workspace {
+		double[] m;                  // midpoint
+		Box mid;                     // midpoint, as a box
+		Interval[] grad;             // gradient of f
+		final Interval fm = Interval.ALL_REALS(); // f(m)
+
+		void resize(int n) {
+			if (m!=null && m.length==n) return;
+			m = new double[n];
+			mid = new Box(n);
+			grad = new Interval[n];
+			for (int i=0; i<n; i++) grad[i] = Interval.ALL_REALS();
+		}
+	}
+}
@@ -8,5 +8,12 @@ public abstract class NumericConstraint extends Constraint {
     public NumericConstraint (Function f) {
 	func = f;
     }
+
+    /**
+     * Return the function of this constraint.
+     */
+    public Function getFunction() {
+	return func;
+    }
 }
 
@@ -0,0 +1,39 @@
+package util;
+
+/**
+ * Constraint f(x) in [lb,ub] (e.g., a measure with a bounded error).
+ */
+public class RangeConstraint extends NumericConstraint {
+
+    private final double lb;
+
+    private final double ub;
+
+    public RangeConstraint(Function f, double lb, double ub) {
+	super(f);
+	if (!(lb<=ub)) throw new IllegalArgumentException("Empty range");
+	this.lb = lb;
+	this.ub = ub;
+    }
+
+    public double getLB() {
+	return lb;
+    }
+
+    public double getUB() {
+	return ub;
+    }
+
+    public boolean violated(Box b) {
+	return !this.func.intersects(b, lb, ub);
+    }
+
+    /**
+     * Return the HC4 contractor of this constraint, or null if f
+     * has no symbolic form (see Function.symbolic).
+     */
+    public Contractor contractor() {
+	ExprFunction e = func.symbolic();
+	return e==null ? null : new HC4Revise(e, lb, ub);
+    }
+}
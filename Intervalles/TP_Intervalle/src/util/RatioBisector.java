@@ -0,0 +1,35 @@
+package util;
+
+/**
+ * Bisect the component chosen by another strategy at
+ * lb + ratio*(ub-lb) instead of its midpoint.
+ */
+public class RatioBisector implements Bisector {
+
+	private final Bisector vars;
+
+	private final double ratio;
+
+	/**
+	 * @param vars strategy choosing the component
+	 * @param ratio in (0,1)
+	 */
+	public RatioBisector(Bisector vars, double ratio) {
+		if (!(ratio>0 && ratio<1)) throw new IllegalArgumentException("Ratio must be in (0,1)");
+		this.vars = vars;
+		this.ratio = ratio;
+	}
+
+	public int variable(Box x, int last) {
+		return vars.variable(x, last);
+	}
+
+	public double point(Box x, int var) {
+		double lb = x.getLB(var);
+		double ub = x.getUB(var);
+		double pt = lb + ratio*(ub-lb);
+		// too small or unbounded interval
+		if (!(pt>lb && pt<ub)) pt = Interval.tryMid(lb, ub);
+		return pt;
+	}
+}
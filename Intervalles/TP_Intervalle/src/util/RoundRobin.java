@@ -0,0 +1,21 @@
+package util;
+
+/**
+ * Bisect the components in turn (skipping the degenerated ones),
+ * at their midpoint.
+ */
+public class RoundRobin implements Bisector {
+
+	public int variable(Box x, int last) {
+		int n = x.dim();
+		for (int k=1; k<=n; k++) {
+			int var = (last+k) % n;
+			if (x.getLB(var)<x.getUB(var)) return var;
+		}
+		return (last+1) % n; // degenerated box: tryBisect fails
+	}
+
+	public double point(Box x, int var) {
+		return Interval.tryMid(x.getLB(var), x.getUB(var));
+	}
+}
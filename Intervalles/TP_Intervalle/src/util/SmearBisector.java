@@ -0,0 +1,87 @@
+package util;
+
+/**
+ * Smear-based choice of the component: the bisected component i
+ * maximizes sum_j |df_j/dxi|(x) * diam(x_i) over the functions f_j of
+ * the numeric constraints, i.e., the component on which the functions
+ * vary the most. The component is bisected at its midpoint.
+ *
+ * Requires Function.evalGradient; if a function does not provide its
+ * derivatives, or if all the impacts are null, the component with
+ * maximal diameter is chosen.
+ */
+public class SmearBisector implements Bisector {
+
+	private final Function[] funcs;
+
+	/* False if a function does not provide its derivatives */
+	private final boolean derivable;
+
+	private final Bisector fallback = new LargestFirst();
+
+	/* Gradient and impacts of the current thread */
+	private final ThreadLocal<Workspace> workspace = new Workspaces.Local<Workspace>() {
+		protected Workspace create() {
+			return new Workspace(0);
+		}
+	};
+
+	public SmearBisector(Constraint[] ctrs) {
+		int n = 0;
+		for (Constraint c : ctrs)
+			if (c instanceof NumericConstraint) n++;
+		funcs = new Function[n];
+		n = 0;
+		for (Constraint c : ctrs)
+			if (c instanceof NumericConstraint) funcs[n++] = ((NumericConstraint) c).getFunction();
+		boolean d = true;
+		for (Function f : funcs) d &= f.hasGradient();
+		derivable = d;
+	}
+
+	public int variable(Box x, int last) {
+		if (!derivable) return fallback.variable(x, last);
+		int n = x.dim();
+		Workspace w = workspace.get();
+		if (w.grad.length < n) {
+			w = new Workspace(n);
+			workspace.set(w);
+		}
+		java.util.Arrays.fill(w.impact, 0);
+
+		for (Function f : funcs) {
+			f.evalGradient(x, w.grad);
+			for (int i=0; i<n; i++) {
+				Interval g = w.grad[i];
+				if (g.isEmpty()) continue;
+				w.impact[i] += Math.max(Math.abs(g.getLB()), Math.abs(g.getUB()));
+			}
+		}
+
+		int best = -1;
+		double bestImpact = 0;
+		for (int i=0; i<n; i++) {
+			double impact = w.impact[i] * (x.getUB(i)-x.getLB(i));
+			if (impact>bestImpact) { // false if NaN (0*oo)
+				best = i;
+				bestImpact = impact;
+			}
+		}
+		return best<0 ? fallback.variable(x, last) : best;
+	}
+
+	public double point(Box x, int var) {
+		return Interval.tryMid(x.getLB(var), x.getUB(var));
+	}
+
+	private static class Workspace {
+		final Interval[] grad;
+		final double[] impact;
+
+		Workspace(int n) {
+			grad = new Interval[n];
+			for (int i=0; i<n; i++) grad[i] = Interval.ALL_REALS();
+			impact = new double[n];
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package util;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Flat instruction list compiled from one or several expressions.
+ *
+ * Each node of the DAG becomes one instruction writing its
+ * result in its own slot; instructions are sorted so that the
+ * arguments of an instruction are computed before it. A shared
+ * subexpression is computed once. Evaluation is a single loop over
+ * two caller-supplied arrays (lower and upper bounds of every slot),
+ * so it allocates nothing.
+ */
+public class Tape {
+
+	/* Instructions (one per slot) */
+	final int[] op;
+	final int[] left;    // slot of the first argument, or -1
+	final int[] right;   // slot of the second argument, or -1
+	final int[] var;     // variable index (VAR)
+	final double[] value; // constant (CST)
+
+	/* Slot of each root expression */
+	final int[] outputs;
+
+	/* 1 + the highest variable index */
+	final int nbVar;
+
+	/**
+	 * Compile the expressions "roots" (that must come from the same builder).
+	 */
+	public Tape(Expr... roots) {
+		IdentityHashMap<Expr,Integer> slots = new IdentityHashMap<Expr,Integer>();
+		for (Expr e : roots) number(e, slots);
+
+		int n=slots.size();
+		op=new int[n];
+		left=new int[n];
+		right=new int[n];
+		var=new int[n];
+		value=new double[n];
+		int maxVar=-1;
+		for (Expr e : slots.keySet()) {
+			int k=slots.get(e);
+			op[k]=e.op;
+			left[k]= e.left==null? -1 : slots.get(e.left);
+			right[k]= e.right==null? -1 : slots.get(e.right);
+			var[k]=e.var;
+			value[k]=e.value;
+			if (e.op==Expr.VAR) maxVar=Math.max(maxVar, e.var);
+		}
+		nbVar=maxVar+1;
+
+		outputs=new int[roots.length];
+		for (int i=0; i<roots.length; i++)
+			outputs[i]=slots.get(roots[i]);
+	}
+
+	/**
+	 * Give a slot to "e" after its arguments (post-order).
+	 */
+	private static void number(Expr e, IdentityHashMap<Expr,Integer> slots) {
+		if (slots.containsKey(e)) return;
+		if (e.left!=null) number(e.left, slots);
+		if (e.right!=null) number(e.right, slots);
+		slots.put(e, slots.size());
+	}
+
+	/**
+	 * Return the number of slots (= number of instructions).
+	 */
+	public int size() {
+		return op.length;
+	}
+
+	/**
+	 * Return the number of variables (1 + the highest variable index).
+	 */
+	public int nbVar() {
+		return nbVar;
+	}
+
+	/**
+	 * Return the number of compiled expressions.
+	 */
+	public int nbOutputs() {
+		return outputs.length;
+	}
+
+	/**
+	 * Return the slot holding the value of the ith compiled expression.
+	 */
+	public int output(int i) {
+		return outputs[i];
+	}
+
+	/**
+	 * Evaluate all the instructions in the box x. The bounds of
+	 * the kth slot are stored in lb[k] and ub[k] (arrays of length size()).
+	 *
+	 * @return false if some intermediate result is empty (the
+	 *         content of lb/ub is then undefined).
+	 */
+	public boolean eval(Box x, double[] lb, double[] ub) {
+		return eval(x, lb, ub, false);
+	}
+
+	/**
+	 * Same as eval(x,lb,ub), the result of each operation being rounded
+	 * outward if "outward" (moved to the next double, as the operations
+	 * of IMath round to nearest): the bounds then enclose the exact
+	 * values, not only their floating-point evaluation.
+	 */
+	public boolean eval(Box x, double[] lb, double[] ub, boolean outward) {
+		if (x.isEmpty()) return false;
+		int n=op.length;
+		for (int k=0; k<n; k++) {
+			int a=left[k];
+			int b=right[k];
+			switch (op[k]) {
+			case Expr.VAR :
+				lb[k]=x.getLB(var[k]);
+				ub[k]=x.getUB(var[k]);
+				break;
+			case Expr.CST :
+				lb[k]=value[k];
+				ub[k]=value[k];
+				break;
+			case Expr.ADD :
+				lb[k]=IMath.addLB(lb[a], lb[b]);
+				ub[k]=IMath.addUB(ub[a], ub[b]);
+				break;
+			case Expr.SUB :
+				lb[k]=IMath.subLB(lb[a], ub[b]);
+				ub[k]=IMath.subUB(ub[a], lb[b]);
+				break;
+			case Expr.MUL :
+				lb[k]=IMath.mulLB(lb[a], ub[a], lb[b], ub[b]);
+				ub[k]=IMath.mulUB(lb[a], ub[a], lb[b], ub[b]);
+				break;
+			case Expr.MINUS :
+				lb[k]=-ub[a];
+				ub[k]=-lb[a];
+				break;
+			case Expr.SQR :
+				lb[k]=IMath.sqrLB(lb[a], ub[a]);
+				ub[k]=IMath.sqrUB(lb[a], ub[a]);
+				break;
+			case Expr.SQRT :
+				if (ub[a]<0) return false;
+				lb[k]=IMath.sqrtLB(lb[a]);
+				ub[k]=IMath.sqrtUB(ub[a]);
+				break;
+			}
+			if (outward) widen(k, lb, ub);
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluate all the instructions and their partial derivatives in the
+	 * box x (forward-mode automatic differentiation on intervals).
+	 *
+	 * The bounds of the kth slot are stored in lb[k] and ub[k], as by eval,
+	 * and the bounds of its derivative w.r.t. the ith variable in
+	 * dlb[k*nbVar()+i] and dub[k*nbVar()+i] (arrays of length size()*nbVar()).
+	 *
+	 * @return false if some intermediate result is empty.
+	 */
+	public boolean evalGradient(Box x, double[] lb, double[] ub, double[] dlb, double[] dub) {
+		return evalGradient(x, lb, ub, dlb, dub, false);
+	}
+
+	/**
+	 * Same as evalGradient(x,lb,ub,dlb,dub), rounded outward if
+	 * "outward" (see eval(x,lb,ub,outward)).
+	 */
+	public boolean evalGradient(Box x, double[] lb, double[] ub, double[] dlb, double[] dub, boolean outward) {
+		if (x.isEmpty()) return false;
+		int n=op.length;
+		int m=nbVar;
+		for (int k=0; k<n; k++) {
+			int a=left[k];
+			int b=right[k];
+			int dk=k*m;
+			int da=a*m;
+			int db=b*m;
+			switch (op[k]) {
+			case Expr.VAR :
+				lb[k]=x.getLB(var[k]);
+				ub[k]=x.getUB(var[k]);
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]= i==var[k]? 1 : 0;
+					dub[dk+i]= i==var[k]? 1 : 0;
+				}
+				break;
+			case Expr.CST :
+				lb[k]=value[k];
+				ub[k]=value[k];
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=0;
+					dub[dk+i]=0;
+				}
+				break;
+			case Expr.ADD :
+				lb[k]=IMath.addLB(lb[a], lb[b]);
+				ub[k]=IMath.addUB(ub[a], ub[b]);
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=down(IMath.addLB(dlb[da+i], dlb[db+i]), outward);
+					dub[dk+i]=up(IMath.addUB(dub[da+i], dub[db+i]), outward);
+				}
+				break;
+			case Expr.SUB :
+				lb[k]=IMath.subLB(lb[a], ub[b]);
+				ub[k]=IMath.subUB(ub[a], lb[b]);
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=down(IMath.subLB(dlb[da+i], dub[db+i]), outward);
+					dub[dk+i]=up(IMath.subUB(dub[da+i], dlb[db+i]), outward);
+				}
+				break;
+			case Expr.MUL :
+				lb[k]=IMath.mulLB(lb[a], ub[a], lb[b], ub[b]);
+				ub[k]=IMath.mulUB(lb[a], ub[a], lb[b], ub[b]);
+				// (uv)' = u'v + uv'
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=down(IMath.addLB(down(IMath.mulLB(dlb[da+i], dub[da+i], lb[b], ub[b]), outward),
+					                           down(IMath.mulLB(lb[a], ub[a], dlb[db+i], dub[db+i]), outward)), outward);
+					dub[dk+i]=up(IMath.addUB(up(IMath.mulUB(dlb[da+i], dub[da+i], lb[b], ub[b]), outward),
+					                         up(IMath.mulUB(lb[a], ub[a], dlb[db+i], dub[db+i]), outward)), outward);
+				}
+				break;
+			case Expr.MINUS :
+				lb[k]=-ub[a];
+				ub[k]=-lb[a];
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=-dub[da+i];
+					dub[dk+i]=-dlb[da+i];
+				}
+				break;
+			case Expr.SQR :
+				lb[k]=IMath.sqrLB(lb[a], ub[a]);
+				ub[k]=IMath.sqrUB(lb[a], ub[a]);
+				// (u^2)' = 2uu' (2u is exact)
+				double twice_lb = IMath.scalmulLB(2, lb[a], ub[a]);
+				double twice_ub = IMath.scalmulUB(2, lb[a], ub[a]);
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=down(IMath.mulLB(twice_lb, twice_ub, dlb[da+i], dub[da+i]), outward);
+					dub[dk+i]=up(IMath.mulUB(twice_lb, twice_ub, dlb[da+i], dub[da+i]), outward);
+				}
+				break;
+			case Expr.SQRT :
+				if (ub[a]<0) return false;
+				lb[k]=IMath.sqrtLB(lb[a]);
+				ub[k]=IMath.sqrtUB(ub[a]);
+				if (outward) widen(k, lb, ub);
+				// sqrt(u)' = u' * 1/(2sqrt(u)), unbounded if sqrt(u) contains 0
+				double inv_lb = down(1/(2*ub[k]), outward);
+				double inv_ub = up(1/(2*lb[k]), outward);
+				for (int i=0; i<m; i++) {
+					dlb[dk+i]=down(IMath.mulLB(dlb[da+i], dub[da+i], inv_lb, inv_ub), outward);
+					dub[dk+i]=up(IMath.mulUB(dlb[da+i], dub[da+i], inv_lb, inv_ub), outward);
+				}
+				break;
+			}
+			if (outward && op[k]!=Expr.SQRT) widen(k, lb, ub);
+		}
+		return true;
+	}
+
+	/**
+	 * Round the result of the kth instruction outward (the variables,
+	 * constants and opposites are exact, squares and roots stay >= 0).
+	 */
+	private void widen(int k, double[] lb, double[] ub) {
+		switch (op[k]) {
+		case Expr.VAR :
+		case Expr.CST :
+		case Expr.MINUS :
+			return;
+		case Expr.SQR :
+		case Expr.SQRT :
+			lb[k]=Math.max(0, Math.nextDown(lb[k]));
+			break;
+		default :
+			lb[k]=Math.nextDown(lb[k]);
+		}
+		ub[k]=Math.nextUp(ub[k]);
+	}
+
+	private static double down(double v, boolean outward) {
+		return outward? Math.nextDown(v) : v;
+	}
+
+	private static double up(double v, boolean outward) {
+		return outward? Math.nextUp(v) : v;
+	}
+}
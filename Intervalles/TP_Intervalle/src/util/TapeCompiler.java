@@ -0,0 +1,431 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+
+/**
+ * Generate at runtime a JVM class evaluating an expression.
+ *
+ * The generated class extends CompiledFunction and its eval(Box, Interval)
+ * method is the tape unrolled as straight-line bytecode: the bounds of
+ * every instruction are kept in local variables and computed by calls to
+ * the raw-bound kernels of IMath (addLB, addUB, ...), which the JIT inlines.
+ * There is no dispatch loop left and no array access but the box bounds.
+ *
+ * Each class is defined as a hidden class (Java 15 and later, looked up
+ * reflectively as the project targets Java 11), or else by its own class
+ * loader, so it can be unloaded as soon as the function is no longer
+ * referenced.
+ *
+ * Example:
+ * <pre>
+ *   Function f = TapeCompiler.compile(new CircleFunction(2,1,2.5).expr(new ExprBuilder()));
+ * </pre>
+ */
+public class TapeCompiler {
+
+	/* Opcodes used by the generator */
+	private static final int ICONST_0      = 0x03;
+	private static final int DCONST_0      = 0x0e;
+	private static final int BIPUSH        = 0x10;
+	private static final int SIPUSH        = 0x11;
+	private static final int LDC2_W        = 0x14;
+	private static final int DLOAD         = 0x18;
+	private static final int ALOAD_0       = 0x2a;
+	private static final int ALOAD_1       = 0x2b;
+	private static final int ALOAD_2       = 0x2c;
+	private static final int DSTORE        = 0x39;
+	private static final int DNEG          = 0x77;
+	private static final int DCMPG         = 0x98;
+	private static final int IFEQ          = 0x99;
+	private static final int IFGE          = 0x9c;
+	private static final int RETURN        = 0xb1;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC  = 0xb8;
+	private static final int WIDE          = 0xc4;
+
+	/* Constant pool tags */
+	private static final int CONSTANT_Utf8        = 1;
+	private static final int CONSTANT_Double      = 6;
+	private static final int CONSTANT_Class       = 7;
+	private static final int CONSTANT_Methodref   = 10;
+	private static final int CONSTANT_NameAndType = 12;
+
+	/* Class file version 49 (Java 5): no stack map frames required. */
+	private static final int MAJOR_VERSION = 49;
+
+	/* HotSpot does not JIT-compile methods with more bytecodes than this
+	 * (-XX:+DontCompileHugeMethods), which would make the generated
+	 * code much slower than the tape. */
+	private static final int HUGE_METHOD_LIMIT = 8000;
+
+	/* First local variable holding a bound (0=this, 1=x, 2=res) */
+	private static final int FIRST_LOCAL = 3;
+
+	private static final String IMATH = "util/IMath";
+	private static final String BOX = "util/Box";
+	private static final String INTERVAL = "util/Interval";
+	private static final String SUPER = "util/CompiledFunction";
+
+	/* Numbering of the generated classes */
+	private static int counter = 0;
+
+	/* Lookup.defineHiddenClass(byte[], boolean, ClassOption...), null before Java 15 */
+	private static final Method DEFINE_HIDDEN = defineHiddenMethod();
+
+	/* Empty ClassOption array (the class can be unloaded on its own) */
+	private static final Object NO_OPTIONS = DEFINE_HIDDEN==null? null :
+		Array.newInstance(DEFINE_HIDDEN.getParameterTypes()[2].getComponentType(), 0);
+
+	private static Method defineHiddenMethod() {
+		try {
+			Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			return MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+					byte[].class, boolean.class, Array.newInstance(option, 0).getClass());
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Loader of a single generated class.
+	 */
+	private static class Loader extends ClassLoader {
+		Loader() {
+			super(CompiledFunction.class.getClassLoader());
+		}
+
+		Class<?> define(String name, byte[] b) {
+			return defineClass(name, b, 0, b.length);
+		}
+	}
+
+	/**
+	 * Compile the expression "e" into a new class and return an instance.
+	 *
+	 * @throws IllegalArgumentException if the expression is too large
+	 *         for a single JIT-compiled JVM method.
+	 */
+	public static CompiledFunction compile(Expr e) {
+		String name;
+		synchronized (TapeCompiler.class) {
+			name = "util/CompiledFunction$Generated" + (++counter);
+		}
+		byte[] b = new TapeCompiler(new Tape(e), name).generate();
+		try {
+			Class<?> c;
+			if (DEFINE_HIDDEN!=null) {
+				MethodHandles.Lookup l = (MethodHandles.Lookup) DEFINE_HIDDEN.invoke(MethodHandles.lookup(), b, true, NO_OPTIONS);
+				c = l.lookupClass();
+			} else
+				c = new Loader().define(name.replace('/', '.'), b);
+			CompiledFunction f = (CompiledFunction) c.getDeclaredConstructor().newInstance();
+			f.expr = e;
+			return f;
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private final Tape tape;
+
+	private final String name;
+
+	/* Constant pool */
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream pool = new DataOutputStream(poolBytes);
+	private final HashMap<String,Integer> poolIndex = new HashMap<String,Integer>();
+	private int poolCount = 1;
+
+	/* Bytecode of the method being generated */
+	private ByteArrayOutputStream code;
+
+	private TapeCompiler(Tape tape, String name) {
+		this.tape = tape;
+		this.name = name;
+	}
+
+	/**
+	 * Return the class file.
+	 */
+	private byte[] generate() {
+		try {
+			int thisClass = classRef(name);
+			int superClass = classRef(SUPER);
+
+			byte[] init = generateInit();
+			byte[] eval = generateEval();
+			int codeAttr = utf8("Code");
+			int initName = utf8("<init>");
+			int initDesc = utf8("()V");
+			int evalName = utf8("eval");
+			int evalDesc = utf8("(L" + BOX + ";L" + INTERVAL + ";)V");
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(MAJOR_VERSION);
+			out.writeShort(poolCount);
+			pool.flush();
+			poolBytes.writeTo(out);
+			out.writeShort(0x0031); // public final super
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0); // interfaces
+			out.writeShort(0); // fields
+			out.writeShort(2); // methods
+			writeMethod(out, initName, initDesc, codeAttr, 1, 1, init);
+			writeMethod(out, evalName, evalDesc, codeAttr, 8, FIRST_LOCAL + 4*tape.size(), eval);
+			out.writeShort(0); // attributes
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex); // cannot happen (in-memory streams)
+		}
+	}
+
+	private static void writeMethod(DataOutputStream out, int name, int desc, int codeAttr,
+									int maxStack, int maxLocals, byte[] code) throws IOException {
+		if (code.length > HUGE_METHOD_LIMIT || maxLocals > 65535)
+			throw new IllegalArgumentException("Expression too large to be compiled");
+		out.writeShort(0x0001); // public
+		out.writeShort(name);
+		out.writeShort(desc);
+		out.writeShort(1); // attributes
+		out.writeShort(codeAttr);
+		out.writeInt(12 + code.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(code.length);
+		out.write(code);
+		out.writeShort(0); // exception table
+		out.writeShort(0); // attributes
+	}
+
+	/**
+	 * Constructor: super();
+	 */
+	private byte[] generateInit() throws IOException {
+		code = new ByteArrayOutputStream();
+		code.write(ALOAD_0);
+		invoke(INVOKESPECIAL, SUPER, "<init>", "()V");
+		code.write(RETURN);
+		return code.toByteArray();
+	}
+
+	/**
+	 * eval(Box x, Interval res)
+	 */
+	private byte[] generateEval() throws IOException {
+		code = new ByteArrayOutputStream();
+
+		// if (x.isEmpty()) { res.setToEmpty(); return; }
+		code.write(ALOAD_1);
+		invoke(INVOKEVIRTUAL, BOX, "isEmpty", "()Z");
+		exitIfEmpty(IFEQ);
+
+		for (int k=0; k<tape.size(); k++) {
+			int a=tape.left[k];
+			int b=tape.right[k];
+			switch (tape.op[k]) {
+			case Expr.VAR :
+				code.write(ALOAD_1);
+				pushInt(tape.var[k]);
+				invoke(INVOKEVIRTUAL, BOX, "getLB", "(I)D");
+				dstore(lb(k));
+				code.write(ALOAD_1);
+				pushInt(tape.var[k]);
+				invoke(INVOKEVIRTUAL, BOX, "getUB", "(I)D");
+				dstore(ub(k));
+				break;
+			case Expr.CST :
+				code.write(LDC2_W);
+				u2(doubleConst(tape.value[k]));
+				dstore(lb(k));
+				code.write(LDC2_W);
+				u2(doubleConst(tape.value[k]));
+				dstore(ub(k));
+				break;
+			case Expr.ADD :
+				binary(k, "addLB", lb(a), lb(b), "addUB", ub(a), ub(b));
+				break;
+			case Expr.SUB :
+				binary(k, "subLB", lb(a), ub(b), "subUB", ub(a), lb(b));
+				break;
+			case Expr.MUL :
+				dload(lb(a)); dload(ub(a)); dload(lb(b)); dload(ub(b));
+				invoke(INVOKESTATIC, IMATH, "mulLB", "(DDDD)D");
+				dstore(lb(k));
+				dload(lb(a)); dload(ub(a)); dload(lb(b)); dload(ub(b));
+				invoke(INVOKESTATIC, IMATH, "mulUB", "(DDDD)D");
+				dstore(ub(k));
+				break;
+			case Expr.MINUS :
+				dload(ub(a));
+				code.write(DNEG);
+				dstore(lb(k));
+				dload(lb(a));
+				code.write(DNEG);
+				dstore(ub(k));
+				break;
+			case Expr.SQR :
+				binary(k, "sqrLB", lb(a), ub(a), "sqrUB", lb(a), ub(a));
+				break;
+			case Expr.SQRT :
+				// if (ub<0) { res.setToEmpty(); return; }
+				dload(ub(a));
+				code.write(DCONST_0);
+				code.write(DCMPG);
+				exitIfEmpty(IFGE);
+				dload(lb(a));
+				invoke(INVOKESTATIC, IMATH, "sqrtLB", "(D)D");
+				dstore(lb(k));
+				dload(ub(a));
+				invoke(INVOKESTATIC, IMATH, "sqrtUB", "(D)D");
+				dstore(ub(k));
+				break;
+			}
+		}
+
+		// res.set(lb,ub); return;
+		int out=tape.output(0);
+		code.write(ALOAD_2);
+		dload(lb(out));
+		dload(ub(out));
+		invoke(INVOKEVIRTUAL, INTERVAL, "set", "(DD)V");
+		code.write(RETURN);
+		return code.toByteArray();
+	}
+
+	/**
+	 * Local variable holding the lower bound of slot k.
+	 */
+	private static int lb(int k) {
+		return FIRST_LOCAL + 4*k;
+	}
+
+	/**
+	 * Local variable holding the upper bound of slot k.
+	 */
+	private static int ub(int k) {
+		return FIRST_LOCAL + 4*k + 2;
+	}
+
+	/**
+	 * Slot k = [opLB(l1,l2), opUB(u1,u2)] with binary (DD)D kernels of IMath.
+	 */
+	private void binary(int k, String opLB, int l1, int l2, String opUB, int u1, int u2) throws IOException {
+		dload(l1); dload(l2);
+		invoke(INVOKESTATIC, IMATH, opLB, "(DD)D");
+		dstore(lb(k));
+		dload(u1); dload(u2);
+		invoke(INVOKESTATIC, IMATH, opUB, "(DD)D");
+		dstore(ub(k));
+	}
+
+	/**
+	 * Emit "if (!cond) { res.setToEmpty(); return; }" where "ifOpcode"
+	 * jumps over the exit when the result is nonempty.
+	 */
+	private void exitIfEmpty(int ifOpcode) throws IOException {
+		code.write(ifOpcode);
+		u2(8); // if (3) + aload_2 (1) + invokevirtual (3) + return (1)
+		code.write(ALOAD_2);
+		invoke(INVOKEVIRTUAL, INTERVAL, "setToEmpty", "()V");
+		code.write(RETURN);
+	}
+
+	private void dload(int local) throws IOException {
+		localInsn(DLOAD, local);
+	}
+
+	private void dstore(int local) throws IOException {
+		localInsn(DSTORE, local);
+	}
+
+	private void localInsn(int opcode, int local) throws IOException {
+		if (local < 256) {
+			code.write(opcode);
+			code.write(local);
+		} else {
+			code.write(WIDE);
+			code.write(opcode);
+			u2(local);
+		}
+	}
+
+	private void pushInt(int i) throws IOException {
+		if (i <= 5) code.write(ICONST_0 + i);
+		else if (i <= Byte.MAX_VALUE) { code.write(BIPUSH); code.write(i); }
+		else if (i <= Short.MAX_VALUE) { code.write(SIPUSH); u2(i); }
+		else throw new IllegalArgumentException("Variable index too large to be compiled");
+	}
+
+	private void invoke(int opcode, String owner, String method, String desc) throws IOException {
+		code.write(opcode);
+		u2(methodRef(owner, method, desc));
+	}
+
+	private void u2(int v) {
+		code.write((v >> 8) & 0xff);
+		code.write(v & 0xff);
+	}
+
+	/* ============== constant pool ============== */
+
+	private int utf8(String s) throws IOException {
+		Integer i = poolIndex.get("U" + s);
+		if (i != null) return i;
+		pool.writeByte(CONSTANT_Utf8);
+		pool.writeUTF(s);
+		poolIndex.put("U" + s, poolCount);
+		return poolCount++;
+	}
+
+	private int classRef(String internalName) throws IOException {
+		Integer i = poolIndex.get("C" + internalName);
+		if (i != null) return i;
+		int n = utf8(internalName);
+		pool.writeByte(CONSTANT_Class);
+		pool.writeShort(n);
+		poolIndex.put("C" + internalName, poolCount);
+		return poolCount++;
+	}
+
+	private int methodRef(String owner, String method, String desc) throws IOException {
+		String key = "M" + owner + "." + method + desc;
+		Integer i = poolIndex.get(key);
+		if (i != null) return i;
+		int c = classRef(owner);
+		int n = utf8(method);
+		int d = utf8(desc);
+		pool.writeByte(CONSTANT_NameAndType);
+		pool.writeShort(n);
+		pool.writeShort(d);
+		int nt = poolCount++;
+		pool.writeByte(CONSTANT_Methodref);
+		pool.writeShort(c);
+		pool.writeShort(nt);
+		poolIndex.put(key, poolCount);
+		return poolCount++;
+	}
+
+	private int doubleConst(double v) throws IOException {
+		String key = "D" + Double.doubleToLongBits(v);
+		Integer i = poolIndex.get(key);
+		if (i != null) return i;
+		pool.writeByte(CONSTANT_Double);
+		pool.writeDouble(v);
+		poolIndex.put(key, poolCount);
+		int index = poolCount;
+		poolCount += 2; // a double takes two entries
+		return index;
+	}
+}
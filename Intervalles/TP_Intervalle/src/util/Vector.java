@@ -86,7 +86,11 @@ public class Vector {
 	 * Return x-v.
 	 */
 	public Vector sub(Vector v) {
-		return add(v.minus());
+		assert(n==v.size());
+		Vector v2=new Vector(n);
+		for (int i=0; i<n; i++)
+			v2.set(i,get(i)-v.get(i));
+		return v2;
 	}
 	
 	/**
@@ -116,9 +120,60 @@ public class Vector {
 	public double norm() {
 		double ret=0;
 		for (int i=0; i<n; i++)
-			ret=ret+Math.pow(get(i),2);
+			ret=ret+tab[i]*tab[i];
 		return Math.sqrt(ret);
 	}
+
+	/**
+	 * x := v.
+	 */
+	public void set(Vector v) {
+		assert(n==v.size());
+		System.arraycopy(v.tab, 0, tab, 0, n);
+	}
+
+	/**
+	 * x := -x.
+	 */
+	public void setToMinus() {
+		for (int i=0; i<n; i++)
+			tab[i]=-tab[i];
+	}
+
+	/**
+	 * x := x+v.
+	 */
+	public void setToSum(Vector v) {
+		assert(n==v.size());
+		for (int i=0; i<n; i++)
+			tab[i]+=v.tab[i];
+	}
+
+	/**
+	 * x := x-v.
+	 */
+	public void setToDiff(Vector v) {
+		assert(n==v.size());
+		for (int i=0; i<n; i++)
+			tab[i]-=v.tab[i];
+	}
+
+	/**
+	 * x := lambda*x.
+	 */
+	public void setToLeftmul(double lambda) {
+		for (int i=0; i<n; i++)
+			tab[i]*=lambda;
+	}
+
+	/**
+	 * x := x+a*v.
+	 */
+	public void axpy(double a, Vector v) {
+		assert(n==v.size());
+		for (int i=0; i<n; i++)
+			tab[i]+=a*v.tab[i];
+	}
 	
 	/**
 	 * Return x as a string.
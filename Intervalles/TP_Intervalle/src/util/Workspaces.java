@@ -0,0 +1,66 @@
+package util;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Work arrays of the functions, contractors and bisectors, recycled
+ * from one thread to the next.
+ *
+ * The work arrays are kept in a Workspaces.Local, a ThreadLocal that
+ * allocates them at the first use in each thread. When a Workspaces is
+ * bound to the thread (see bind), they are taken from it instead, so
+ * that short-lived threads (e.g., one virtual thread per problem) reuse
+ * the arrays of the previous ones (e.g., when the same problem is solved
+ * again). A Workspaces holds the work arrays of each Local (of each
+ * function, contractor...): two Locals never share arrays, as a call may
+ * use the arrays of another function (e.g., Krawczyk or MeanValueForm
+ * evaluating f). The Locals are weakly referenced, so the arrays of the
+ * functions no longer used are released.
+ *
+ * A Workspaces must be bound to one thread at a time, and the threads
+ * it was bound to must not be used afterwards for other computations
+ * (their Locals still refer to its arrays).
+ */
+public final class Workspaces {
+
+	private static final ThreadLocal<Workspaces> BOUND = new ThreadLocal<Workspaces>();
+
+	/**
+	 * Work arrays of the current thread.
+	 */
+	public abstract static class Local<T> extends ThreadLocal<T> {
+
+		protected final T initialValue() {
+			Workspaces w = BOUND.get();
+			return w==null? create() : w.get(this);
+		}
+
+		/**
+		 * Return new work arrays.
+		 */
+		protected abstract T create();
+
+	}
+
+	private final Map<Local<?>,Object> arrays = new WeakHashMap<Local<?>,Object>();
+
+	/**
+	 * Take the work arrays of the current thread from w (null to
+	 * allocate them again), for the Locals not used yet in this thread.
+	 */
+	public static void bind(Workspaces w) {
+		if (w==null) BOUND.remove();
+		else BOUND.set(w);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T get(Local<T> l) {
+		T a = (T) arrays.get(l);
+		if (a==null) {
+			a = l.create();
+			arrays.put(l, a);
+		}
+		return a;
+	}
+}
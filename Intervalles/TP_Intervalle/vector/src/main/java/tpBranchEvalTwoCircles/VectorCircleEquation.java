@@ -0,0 +1,25 @@
+package tpBranchEvalTwoCircles;
+
+import util.BoxBlock;
+
+/**
+ * Circle equation whose block evaluation (notViolated) is computed
+ * with the Vector API (see VectorCircleFunction.intersects).
+ */
+public class VectorCircleEquation extends CircleEquation {
+
+    private final VectorCircleFunction circle;
+
+    public VectorCircleEquation(double _p1, double _p2, double _radius) {
+	this(new VectorCircleFunction(_p1, _p2, _radius));
+    }
+
+    private VectorCircleEquation(VectorCircleFunction f) {
+	super(f);
+	this.circle = f;
+    }
+
+    public void notViolated(BoxBlock xs, long[] mask) {
+	circle.intersects(xs, 0, 0, mask);
+    }
+}
@@ -0,0 +1,119 @@
+package tpBranchEvalTwoCircles;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import util.BoxBlock;
+
+/**
+ * Circle function evaluated over blocks of boxes with the Vector API
+ * (jdk.incubator.vector): the boxes of a block are processed
+ * SPECIES.length() at a time (8 with AVX-512), one per lane, and the
+ * last ones with a mask.
+ *
+ * The bounds are the ones of CircleFunction.eval(BoxBlock,...)
+ * (sqr(d) is [max(d_lb,-d_ub,0)^2, max(d_lb^2,d_ub^2)]).
+ */
+public class VectorCircleFunction extends CircleFunction {
+
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    public VectorCircleFunction(double _p1, double _p2, double _radius) {
+	super(_p1, _p2, _radius);
+    }
+
+    public void eval(BoxBlock xs, double[] lb, double[] ub) {
+	double[] x1_lb = xs.lb(0);
+	double[] x1_ub = xs.ub(0);
+	double[] x2_lb = xs.lb(1);
+	double[] x2_ub = xs.ub(1);
+	DoubleVector v1 = DoubleVector.broadcast(SPECIES, p1);
+	DoubleVector v2 = DoubleVector.broadcast(SPECIES, p2);
+	double r2 = radius*radius;
+	int n = xs.size();
+	int end = SPECIES.loopBound(n);
+
+	int k = 0;
+	for (; k < end; k += SPECIES.length()) {
+	    DoubleVector d1_lb = v1.sub(DoubleVector.fromArray(SPECIES, x1_ub, k));
+	    DoubleVector d1_ub = v1.sub(DoubleVector.fromArray(SPECIES, x1_lb, k));
+	    DoubleVector d2_lb = v2.sub(DoubleVector.fromArray(SPECIES, x2_ub, k));
+	    DoubleVector d2_ub = v2.sub(DoubleVector.fromArray(SPECIES, x2_lb, k));
+	    lower(d1_lb, d1_ub, d2_lb, d2_ub, r2).intoArray(lb, k);
+	    upper(d1_lb, d1_ub, d2_lb, d2_ub, r2).intoArray(ub, k);
+	}
+	if (k < n) {
+	    VectorMask<Double> m = SPECIES.indexInRange(k, n);
+	    DoubleVector d1_lb = v1.sub(DoubleVector.fromArray(SPECIES, x1_ub, k, m));
+	    DoubleVector d1_ub = v1.sub(DoubleVector.fromArray(SPECIES, x1_lb, k, m));
+	    DoubleVector d2_lb = v2.sub(DoubleVector.fromArray(SPECIES, x2_ub, k, m));
+	    DoubleVector d2_ub = v2.sub(DoubleVector.fromArray(SPECIES, x2_lb, k, m));
+	    lower(d1_lb, d1_ub, d2_lb, d2_ub, r2).intoArray(lb, k, m);
+	    upper(d1_lb, d1_ub, d2_lb, d2_ub, r2).intoArray(ub, k, m);
+	}
+    }
+
+    /**
+     * Set the kth bit of "mask" (bit k%64 of mask[k/64]) iff f over the
+     * kth box of the block, as given by eval(BoxBlock,...), intersects
+     * [lb,ub]; the other bits of the words covering the block are
+     * cleared. The bits of each vector come from a single comparison.
+     */
+    public void intersects(BoxBlock xs, double lb, double ub, long[] mask) {
+	double[] x1_lb = xs.lb(0);
+	double[] x1_ub = xs.ub(0);
+	double[] x2_lb = xs.lb(1);
+	double[] x2_ub = xs.ub(1);
+	DoubleVector v1 = DoubleVector.broadcast(SPECIES, p1);
+	DoubleVector v2 = DoubleVector.broadcast(SPECIES, p2);
+	double r2 = radius*radius;
+	int n = xs.size();
+	int end = SPECIES.loopBound(n);
+	Arrays.fill(mask, 0, (n + 63) >>> 6, 0L);
+
+	// SPECIES.length() divides 64: the bits of a vector are in one word
+	int k = 0;
+	for (; k < end; k += SPECIES.length()) {
+	    DoubleVector d1_lb = v1.sub(DoubleVector.fromArray(SPECIES, x1_ub, k));
+	    DoubleVector d1_ub = v1.sub(DoubleVector.fromArray(SPECIES, x1_lb, k));
+	    DoubleVector d2_lb = v2.sub(DoubleVector.fromArray(SPECIES, x2_ub, k));
+	    DoubleVector d2_ub = v2.sub(DoubleVector.fromArray(SPECIES, x2_lb, k));
+	    VectorMask<Double> in = lower(d1_lb, d1_ub, d2_lb, d2_ub, r2).compare(VectorOperators.LE, ub)
+		.and(upper(d1_lb, d1_ub, d2_lb, d2_ub, r2).compare(VectorOperators.GE, lb));
+	    mask[k >>> 6] |= in.toLong() << k;
+	}
+	if (k < n) {
+	    VectorMask<Double> m = SPECIES.indexInRange(k, n);
+	    DoubleVector d1_lb = v1.sub(DoubleVector.fromArray(SPECIES, x1_ub, k, m));
+	    DoubleVector d1_ub = v1.sub(DoubleVector.fromArray(SPECIES, x1_lb, k, m));
+	    DoubleVector d2_lb = v2.sub(DoubleVector.fromArray(SPECIES, x2_ub, k, m));
+	    DoubleVector d2_ub = v2.sub(DoubleVector.fromArray(SPECIES, x2_lb, k, m));
+	    VectorMask<Double> in = lower(d1_lb, d1_ub, d2_lb, d2_ub, r2).compare(VectorOperators.LE, ub)
+		.and(upper(d1_lb, d1_ub, d2_lb, d2_ub, r2).compare(VectorOperators.GE, lb)).and(m);
+	    mask[k >>> 6] |= in.toLong() << k;
+	}
+    }
+
+    /**
+     * Lower bounds of (p1 - x1)^2 + (p2 - x2)^2 - radius^2.
+     */
+    private static DoubleVector lower(DoubleVector d1_lb, DoubleVector d1_ub, DoubleVector d2_lb, DoubleVector d2_ub, double r2) {
+	// distance from 0 to d1 and d2
+	DoubleVector m1 = d1_lb.max(d1_ub.neg()).max(0);
+	DoubleVector m2 = d2_lb.max(d2_ub.neg()).max(0);
+	return m1.mul(m1).add(m2.mul(m2)).sub(r2);
+    }
+
+    /**
+     * Upper bounds of (p1 - x1)^2 + (p2 - x2)^2 - radius^2.
+     */
+    private static DoubleVector upper(DoubleVector d1_lb, DoubleVector d1_ub, DoubleVector d2_lb, DoubleVector d2_ub, double r2) {
+	DoubleVector s1 = d1_lb.mul(d1_lb).max(d1_ub.mul(d1_ub));
+	DoubleVector s2 = d2_lb.mul(d2_lb).max(d2_ub.mul(d2_ub));
+	return s1.add(s2).sub(r2);
+    }
+}
@@ -0,0 +1,87 @@
+package tpBranchEvalTwoCircles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import util.Box;
+import util.BoxBlock;
+import util.Interval;
+
+/**
+ * The Vector API evaluation of a block gives the same bounds and the
+ * same masks as the scalar one of CircleFunction and CircleEquation,
+ * whatever the number of boxes (full vectors and masked tail).
+ */
+class VectorCircleTest {
+
+    static final double[][] CIRCLES = { { 0, 0, 1 }, { 2, 1, 2.5 } };
+
+    /**
+     * Return n random boxes, with some empty, unbounded,
+     * degenerate or signed-zero ones.
+     */
+    static Box[] boxes(int n, Random r) {
+	Box[] boxes = MainBenchEvalModes.randomBoxes(n, r);
+	for (int k = 0; k < n; k += 7) {
+	    switch (r.nextInt(4)) {
+	    case 0:
+		boxes[k] = new Box(2, Interval.EMPTY());
+		break;
+	    case 1:
+		boxes[k].set(r.nextInt(2), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+		break;
+	    case 2:
+		boxes[k].set(0, 1, 1);
+		boxes[k].set(1, 0, 0);
+		break;
+	    default:
+		boxes[k].set(0, -0.0, 0.0);
+	    }
+	}
+	return boxes;
+    }
+
+    @Test
+    void sameBounds() {
+	Random r = new Random(0);
+	for (double[] c : CIRCLES) {
+	    CircleFunction scalar = new CircleFunction(c[0], c[1], c[2]);
+	    VectorCircleFunction vector = new VectorCircleFunction(c[0], c[1], c[2]);
+	    for (int n : new int[] { 0, 1, 5, 8, 13, 64, 67, 4096 }) {
+		BoxBlock xs = new BoxBlock(2, Math.max(1, n));
+		for (Box x : boxes(n, r)) xs.add(x);
+		double[] lb1 = new double[n], ub1 = new double[n];
+		double[] lb2 = new double[n], ub2 = new double[n];
+		scalar.eval(xs, lb1, ub1);
+		vector.eval(xs, lb2, ub2);
+		for (int k = 0; k < n; k++) {
+		    assertEquals(lb1[k], lb2[k], "n=" + n + " k=" + k);
+		    assertEquals(ub1[k], ub2[k], "n=" + n + " k=" + k);
+		}
+	    }
+	}
+    }
+
+    @Test
+    void sameMasks() {
+	Random r = new Random(1);
+	for (double[] c : CIRCLES) {
+	    CircleEquation scalar = new CircleEquation(c[0], c[1], c[2]);
+	    VectorCircleEquation vector = new VectorCircleEquation(c[0], c[1], c[2]);
+	    for (int n : new int[] { 0, 1, 5, 8, 13, 64, 67, 4096 }) {
+		BoxBlock xs = new BoxBlock(2, Math.max(1, n));
+		for (Box x : boxes(n, r)) xs.add(x);
+		long[] m1 = new long[(n + 63) / 64];
+		long[] m2 = new long[(n + 63) / 64];
+		java.util.Arrays.fill(m2, -1L); // cleared by notViolated
+		scalar.notViolated(xs, m1);
+		vector.notViolated(xs, m2);
+		for (int j = 0; j < m1.length; j++)
+		    assertEquals(m1[j], m2[j], "n=" + n + " word " + j);
+	    }
+	}
+    }
+}